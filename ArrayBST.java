@@ -0,0 +1,523 @@
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class creates a binary search tree whose nodes are not separate objects.
+ * Node i is made of slot i in a set of parallel arrays (element, left child index,
+ * right child index, height), so a tree of n elements is a handful of large arrays
+ * instead of n small objects for the garbage collector to trace, and a walk down the
+ * tree touches contiguous memory. Slots freed by remove are kept on a free list and
+ * reused by later adds. The tree cannot contain null or duplicate elements, and like
+ * BST it can be created in balanced mode, in which case it rebalances itself (AVL)
+ * after every add and remove.
+ * @author Matthew Goodbar
+ *
+ * @param <E> Must implement comparable interface
+ */
+public class ArrayBST<E extends Comparable<E>> extends AbstractSet<E> implements Iterable<E>{
+
+	//Index used in place of a null child
+	private static final int NIL = -1;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] data;
+	private int[] left;
+	private int[] right;
+	private int[] height;
+	private int root = NIL;
+	private int size = 0;
+	//Number of slots ever handed out, slots past this have never been used
+	private int used = 0;
+	//Head of the list of removed slots, linked through the left array
+	private int free = NIL;
+	private final boolean balanced;
+	//Scratch space holding the root-to-node path during add and remove
+	private int[] path = new int[64];
+
+	/**
+	 * Creates an empty, unbalanced binary search tree.
+	 */
+	public ArrayBST() {
+		this(false);
+	}
+
+	/**
+	 * Creates an empty binary search tree.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 */
+	public ArrayBST(boolean balanced) {
+		this(balanced, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty binary search tree with room for the given number of
+	 * elements before its arrays need to grow.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 * @param capacity The initial number of node slots.
+	 * @throws IllegalArgumentException When capacity is negative.
+	 */
+	public ArrayBST(boolean balanced, int capacity) throws IllegalArgumentException {
+		if (capacity < 0)
+			throw new IllegalArgumentException("ArrayBST in class ArrayBST.java requires a non-negative capacity");
+		this.balanced = balanced;
+		data = new Object[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		height = new int[capacity];
+	}
+
+	/**
+	 * @return Returns true if this tree rebalances itself on add and remove.
+	 */
+	public boolean isBalanced() {
+		return balanced;
+	}
+
+	/**
+	 * Adds an element to the tree. Cannot add null or duplicate elements.
+	 * @param e Element to be added
+	 * @return Returns true if the element was added successfully, false if otherwise.
+	 */
+	public boolean add(E e) {
+		//Don't allow null elements
+		if (e == null)
+			return false;
+		//Tree is empty, set a new root
+		if (root == NIL) {
+			root = newNode(e);
+			size++;
+			return true;
+		}
+		int depth = 0;
+		int n = root;
+		while (true) {
+			int cmp = element(n).compareTo(e);
+			//Don't allow duplicates
+			if (cmp == 0)
+				return false;
+			if (balanced)
+				depth = pushPath(depth, n);
+			if (cmp > 0) {
+				if (left[n] == NIL) {
+					//newNode may replace the arrays, so it has to run before left[n] is looked up
+					int child = newNode(e);
+					left[n] = child;
+					break;
+				}
+				n = left[n];
+			} else {
+				if (right[n] == NIL) {
+					int child = newNode(e);
+					right[n] = child;
+					break;
+				}
+				n = right[n];
+			}
+		}
+		size++;
+		retrace(depth);
+		return true;
+	}
+
+	/**
+	 * Checks to see if the given argument is contained within the tree
+	 * @param o The element to be searched for in the tree.
+	 * @return Returns true if the given argument is in the tree, false if otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o) {
+		if (!sameType(o))
+			return false;
+		return find((E) o) != NIL;
+	}
+
+	/**
+	 * Returns a reference to the element in the tree equal to the
+	 * given argument if it exists in the tree
+	 * @param value The value to be searched for in the tree.
+	 * @return Returns a reference to the value in the tree.
+	 */
+	public E get(E value) {
+		if (!sameType(value))
+			return null;
+		int n = find(value);
+		return (n == NIL) ? null : element(n);
+	}
+
+	/**
+	 * Removes the given object from the tree if it exists.
+	 * @param o The object to be removed from the tree.
+	 * @return Returns true if the element was successfully removed
+	 * from the tree, false if otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o) {
+		if (!sameType(o))
+			return false;
+		E e = (E) o;
+		int depth = 0;
+		int n = root;
+		while (n != NIL) {
+			int cmp = element(n).compareTo(e);
+			if (cmp == 0)
+				break;
+			depth = pushPath(depth, n);
+			n = (cmp > 0) ? left[n] : right[n];
+		}
+		if (n == NIL)
+			return false;
+		//Two children, move the predecessor's element up and unlink the predecessor instead
+		if (left[n] != NIL && right[n] != NIL) {
+			int target = n;
+			depth = pushPath(depth, n);
+			n = left[n];
+			while (right[n] != NIL) {
+				depth = pushPath(depth, n);
+				n = right[n];
+			}
+			data[target] = data[n];
+		}
+		int child = (left[n] != NIL) ? left[n] : right[n];
+		replaceChild(depth, n, child);
+		freeNode(n);
+		size--;
+		retrace(depth);
+		return true;
+	}
+
+	/**
+	 * Clears the tree of all elements. The arrays keep their capacity.
+	 */
+	public void clear() {
+		Arrays.fill(data, 0, used, null);
+		root = NIL;
+		size = 0;
+		used = 0;
+		free = NIL;
+	}
+
+	/**
+	 * @return Returns the number of elements in the tree.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks to see if the tree is empty.
+	 * @return Returns true if the tree has no elements, false if otherwise.
+	 */
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	/**
+	 * Shrinks the arrays to the number of elements in the tree, compacting the
+	 * nodes so that they are laid out in in-order sequence.
+	 */
+	public void trimToSize() {
+		Object[] sorted = toArray();
+		data = new Object[size];
+		left = new int[size];
+		right = new int[size];
+		height = new int[size];
+		used = 0;
+		free = NIL;
+		root = build(sorted, 0, size);
+	}
+
+	/**
+	 * @return Returns the first (lowest) element currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
+	 */
+	public E first() throws NoSuchElementException {
+		int n = root;
+		if (n == NIL)
+			throw new NoSuchElementException();
+		while (left[n] != NIL) {
+			n = left[n];
+		}
+		return element(n);
+	}
+
+	/**
+	 * @return Returns the last (highest) element currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
+	 */
+	public E last() throws NoSuchElementException {
+		int n = root;
+		if (n == NIL)
+			throw new NoSuchElementException();
+		while (right[n] != NIL) {
+			n = right[n];
+		}
+		return element(n);
+	}
+
+	/**
+	 * @param e The given element to compare to
+	 * @return Returns the least element in this set greater than or equal to the given element,
+	 * or null if there is no such element.
+	 */
+	public E ceiling(E e) {
+		return search(e, true, true);
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the greatest element in this set less than or equal to the given element,
+	 * or null if there is no such element
+	 */
+	public E floor(E e) {
+		return search(e, false, true);
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the least element in this set strictly greater than the given element,
+	 * or null if there is no such element.
+	 */
+	public E higher(E e) {
+		return search(e, true, false);
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the greatest element in this set strictly less than the given element,
+	 * or null if there is no such element
+	 */
+	public E lower(E e) {
+		return search(e, false, false);
+	}
+
+	/**
+	 * Creates and returns an iterator that iterates through
+	 * the tree via the natural ordering of the elements.
+	 * @return Returns an instance of the iterator.
+	 */
+	public Iterator<E> iterator() {
+		return new ArrayBSTIter();
+	}
+
+	/*
+	 * Walks down from the root the same way find does, keeping in candidate the
+	 * index of the closest node seen so far on the requested side of e (above for
+	 * ceiling/higher, below for floor/lower). An equal element ends the walk when
+	 * inclusive, otherwise the walk steps past it, to the side being searched.
+	 */
+	private E search(E e, boolean above, boolean inclusive) {
+		if (e == null)
+			return null;
+		int candidate = NIL;
+		int n = root;
+		while (n != NIL) {
+			int cmp = element(n).compareTo(e);
+			if (cmp == 0 && inclusive)
+				return element(n);
+			if (above ? cmp > 0 : cmp < 0)
+				candidate = n;
+			n = (cmp > 0 || (cmp == 0 && !above)) ? left[n] : right[n];
+		}
+		return (candidate == NIL) ? null : element(candidate);
+	}
+
+	private int find(E e) {
+		int n = root;
+		while (n != NIL) {
+			int cmp = element(n).compareTo(e);
+			if (cmp == 0)
+				return n;
+			n = (cmp > 0) ? left[n] : right[n];
+		}
+		return NIL;
+	}
+
+	/*
+	 * Only non-null elements of the same class as the ones in the tree can be in it
+	 */
+	private boolean sameType(Object o) {
+		return root != NIL && o != null && o.getClass() == data[root].getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	private E element(int n) {
+		return (E) data[n];
+	}
+
+	/*
+	 * Takes a slot from the free list, or the next unused slot, growing the
+	 * arrays if they are full. Returns the index of the new leaf.
+	 */
+	private int newNode(E e) {
+		int n;
+		if (free != NIL) {
+			n = free;
+			free = left[n];
+		} else {
+			if (used == data.length)
+				grow();
+			n = used++;
+		}
+		data[n] = e;
+		left[n] = NIL;
+		right[n] = NIL;
+		height[n] = 1;
+		return n;
+	}
+
+	/*
+	 * Puts slot n on the free list.
+	 */
+	private void freeNode(int n) {
+		data[n] = null;
+		left[n] = free;
+		free = n;
+	}
+
+	private void grow() {
+		int capacity = Math.max(DEFAULT_CAPACITY, data.length + (data.length >> 1));
+		data = Arrays.copyOf(data, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		height = Arrays.copyOf(height, capacity);
+	}
+
+	/*
+	 * Builds a perfectly balanced subtree out of sorted[from, to), handing out
+	 * slots in in-order sequence. Returns the index of the subtree's root.
+	 */
+	@SuppressWarnings("unchecked")
+	private int build(Object[] sorted, int from, int to) {
+		if (from == to)
+			return NIL;
+		int mid = (from + to) >>> 1;
+		int leftChild = build(sorted, from, mid);
+		int n = newNode((E) sorted[mid]);
+		int rightChild = build(sorted, mid + 1, to);
+		left[n] = leftChild;
+		right[n] = rightChild;
+		updateHeight(n);
+		return n;
+	}
+
+	/*
+	 * Stores n at the given depth of the path used by add and remove, growing
+	 * the array if the tree is deeper than it has been so far. Returns depth + 1.
+	 */
+	private int pushPath(int depth, int n) {
+		if (depth == path.length)
+			path = Arrays.copyOf(path, path.length * 2);
+		path[depth] = n;
+		return depth + 1;
+	}
+	/*
+	 * Makes child take the place of n under the parent at path[depth - 1],
+	 * or as the root if depth is 0.
+	 */
+	private void replaceChild(int depth, int n, int child) {
+		if (depth == 0)
+			root = child;
+		else if (left[path[depth - 1]] == n)
+			left[path[depth - 1]] = child;
+		else
+			right[path[depth - 1]] = child;
+	}
+	/*
+	 * Rebalances every node on the path from path[depth - 1] back up to the root
+	 * if the tree is in balanced mode.
+	 */
+	private void retrace(int depth) {
+		if (!balanced)
+			return;
+		for (int i = depth - 1; i >= 0; i--) {
+			int n = path[i];
+			int replacement = rebalance(n);
+			if (replacement != n)
+				replaceChild(i, n, replacement);
+		}
+	}
+
+	/*
+	 * Recomputes the height of n and performs the AVL rotation(s) needed if the
+	 * heights of its subtrees differ by more than one. Returns the new root of
+	 * the subtree.
+	 */
+	private int rebalance(int n) {
+		updateHeight(n);
+		int balance = height(left[n]) - height(right[n]);
+		if (balance > 1) {
+			if (height(left[left[n]]) < height(right[left[n]]))
+				left[n] = rotateLeft(left[n]);
+			return rotateRight(n);
+		}
+		if (balance < -1) {
+			if (height(right[right[n]]) < height(left[right[n]]))
+				right[n] = rotateRight(right[n]);
+			return rotateLeft(n);
+		}
+		return n;
+	}
+	private int rotateRight(int n) {
+		int pivot = left[n];
+		left[n] = right[pivot];
+		right[pivot] = n;
+		updateHeight(n);
+		updateHeight(pivot);
+		return pivot;
+	}
+	private int rotateLeft(int n) {
+		int pivot = right[n];
+		right[n] = left[pivot];
+		left[pivot] = n;
+		updateHeight(n);
+		updateHeight(pivot);
+		return pivot;
+	}
+	private int height(int n) {
+		return (n == NIL) ? 0 : height[n];
+	}
+	private void updateHeight(int n) {
+		height[n] = 1 + Math.max(height(left[n]), height(right[n]));
+	}
+
+	/*
+	 * In-order iterator that only keeps the indices on the path from the root
+	 * to the current node.
+	 */
+	private class ArrayBSTIter implements Iterator<E>{
+
+		private int[] stack = new int[16];
+		private int top = 0;
+
+		public ArrayBSTIter() {
+			pushLeft(root);
+		}
+
+		private void pushLeft(int n) {
+			while (n != NIL) {
+				if (top == stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				stack[top++] = n;
+				n = left[n];
+			}
+		}
+
+		public boolean hasNext() {
+			return top > 0;
+		}
+
+		public E next() {
+			if (top == 0)
+				throw new NoSuchElementException();
+			int n = stack[--top];
+			pushLeft(right[n]);
+			return element(n);
+		}
+
+	}
+
+}
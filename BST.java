@@ -1,22 +1,240 @@
+import java.util.ArrayDeque;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Stack;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * This class creates a binary search tree. The tree cannot contain 
- * null or duplicate elements. 
+ * null or duplicate elements. The tree can optionally be created in balanced
+ * mode, in which case it rebalances itself (AVL) after every add and remove so
+ * that its height stays O(log n) even when elements are added in sorted order.
+ * The range views returned by subSet, headSet, tailSet and descendingSet are
+ * backed by the tree, so changes to one are visible in the other.
  * 12/5/2018
  * @author Matthew Goodbar
  *
  * @param <E> Must implement comparable interface
  */
-public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
+public class BST<E extends Comparable<E>> implements NavigableSet<E>, Iterable<E>{
 
 	private BSTNode<E> root;
 	private int size = 0;
+	//Sum of the hash codes of the elements, kept up to date by every change
+	private int hash = 0;
+	//Number of structural changes, iterators check it to fail fast
+	private int modCount = 0;
+	//Bumped by snapshot(). Nodes stamped with an older epoch may be read by a snapshot,
+	//so add and remove copy them before changing them
+	private int epoch = 0;
+	private final boolean balanced;
+	//Scratch space holding the root-to-node path during add and remove
+	private BSTNode<E>[] path;
+	private static final int INITIAL_PATH_LENGTH = 64;
+	//Operations performed by merge
+	private static final int UNION = 0;
+	private static final int INTERSECTION = 1;
+	private static final int DIFFERENCE = 2;
 	
-	public BST() {}
+	/**
+	 * Creates an empty, unbalanced binary search tree.
+	 */
+	public BST() {
+		this(false);
+	}
+	
+	/**
+	 * Creates an empty binary search tree.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 */
+	public BST(boolean balanced) {
+		this.balanced = balanced;
+	}
+	
+	/**
+	 * Creates an unbalanced binary search tree holding the elements of c.
+	 * @param c The elements to add, null and duplicate elements are skipped.
+	 */
+	public BST(Collection<? extends E> c) {
+		this(c, false);
+	}
+	
+	/**
+	 * Creates a binary search tree holding the elements of c. The elements are
+	 * sorted once and the tree is built perfectly balanced in linear time, rather
+	 * than added one at a time.
+	 * @param c The elements to add, null and duplicate elements are skipped.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 */
+	public BST(Collection<? extends E> c, boolean balanced) {
+		this(balanced);
+		//Another tree is already sorted and distinct, so skip the sort
+		if (c instanceof BST) {
+			setContents(((BST<? extends E>) c).iterator(), c.size());
+		} else {
+			E[] sorted = sortedDistinct(c);
+			setContents(Arrays.asList(sorted).iterator(), sorted.length);
+		}
+	}
+	
+	/**
+	 * Builds a perfectly balanced binary search tree from an array in linear time.
+	 * @param sorted The elements of the tree, in strictly ascending order.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 * @return Returns the new tree.
+	 * @throws IllegalArgumentException When the array holds null elements or is not
+	 * in strictly ascending order.
+	 */
+	public static <E extends Comparable<E>> BST<E> fromSorted(E[] sorted, boolean balanced)
+			throws IllegalArgumentException {
+		return fromSorted(Arrays.asList(sorted).iterator(), sorted.length, balanced);
+	}
+	
+	/**
+	 * Builds a perfectly balanced binary search tree from an iterator in linear time.
+	 * @param sorted Iterator over the elements of the tree, in strictly ascending order.
+	 * @param size The number of elements to take from the iterator.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 * @return Returns the new tree.
+	 * @throws IllegalArgumentException When size is negative, the iterator has fewer
+	 * than size elements, or the elements are null or not in strictly ascending order.
+	 */
+	public static <E extends Comparable<E>> BST<E> fromSorted(Iterator<? extends E> sorted, int size,
+			boolean balanced) throws IllegalArgumentException {
+		if (size < 0)
+			throw new IllegalArgumentException("fromSorted in class BST.java requires a non-negative size");
+		BST<E> tree = new BST<>(balanced);
+		tree.setContents(new AscendingIterator<E>(sorted), size);
+		return tree;
+	}
+	
+	/*
+	 * Rebuilds an unbalanced tree from the in-order index of each of its elements,
+	 * listed in preorder, as written by preorderRanks. element maps an in-order index
+	 * to its element. Used by MappedBST to restore the shape of a tree in linear time.
+	 */
+	static <E extends Comparable<E>> BST<E> fromPreorderRanks(int[] ranks, IntFunction<? extends E> element)
+			throws IllegalArgumentException {
+		BST<E> tree = new BST<>(false);
+		tree.setShape(ranks, element);
+		return tree;
+	}
+	
+	/*
+	 * Links the nodes into the shape given by ranks with an explicit stack, like
+	 * rebuilding a tree from its preorder listing, then fixes the heights and counts
+	 * bottom up. Children come after their parent in preorder, so walking the ranks
+	 * backwards updates every node after its subtrees.
+	 */
+	private void setShape(int[] ranks, IntFunction<? extends E> element) {
+		int n = ranks.length;
+		ArrayList<BSTNode<E>> byRank = new ArrayList<>(Collections.<BSTNode<E>>nCopies(n, null));
+		int[] stack = new int[n];
+		int top = -1;
+		int floor = -1; //Every later rank must be above the last node whose right subtree was entered
+		BSTNode<E> first = null;
+		int hashed = 0;
+		for (int r : ranks) {
+			if (r <= floor || r >= n || byRank.get(r) != null)
+				throw new IllegalArgumentException("fromPreorderRanks in class BST.java was given an invalid preorder");
+			BSTNode<E> node = new BSTNode<E>(element.apply(r));
+			hashed += node.data.hashCode();
+			byRank.set(r, node);
+			if (top < 0) {
+				first = node;
+			} else if (r < stack[top]) {
+				byRank.get(stack[top]).left = node;
+			} else {
+				int parent;
+				do {
+					parent = stack[top--];
+				} while (top >= 0 && stack[top] < r);
+				byRank.get(parent).right = node;
+				floor = parent;
+			}
+			stack[++top] = r;
+		}
+		for (int i = n - 1; i >= 0; i--)
+			update(byRank.get(ranks[i]));
+		root = first;
+		hash = hashed;
+		size = n;
+		modCount++;
+	}
+	
+	/*
+	 * Replaces the contents of the tree with the next n elements of itr, which must
+	 * come in ascending order, built into a perfectly balanced tree.
+	 */
+	private void setContents(Iterator<? extends E> itr, int n) {
+		hash = 0;
+		root = build(itr, n);
+		size = n;
+		modCount++;
+	}
+	
+	/*
+	 * Builds a perfectly balanced subtree out of the next n elements of itr, which
+	 * must come in ascending order. The left half is built first so that elements
+	 * are consumed in order, and the recursion is only O(log n) deep.
+	 */
+	private BSTNode<E> build(Iterator<? extends E> itr, int n) {
+		if (n == 0)
+			return null;
+		BSTNode<E> left = build(itr, n / 2);
+		BSTNode<E> node = new BSTNode<E>(itr.next());
+		hash += (node.data).hashCode();
+		node.left = left;
+		node.right = build(itr, n - n / 2 - 1);
+		update(node);
+		return node;
+	}
+	
+	/*
+	 * Returns the elements of c sorted by their natural ordering, with null
+	 * and duplicate elements left out.
+	 */
+	private E[] sortedDistinct(Collection<? extends E> c) {
+		E[] a = newArray(c.size());
+		int count = 0;
+		for (E e : c) {
+			if (e != null)
+				a[count++] = e;
+		}
+		Arrays.sort(a, 0, count);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || a[distinct - 1].compareTo(a[i]) != 0)
+				a[distinct++] = a[i];
+		}
+		return Arrays.copyOf(a, distinct);
+	}
+	
+	/**
+	 * @return Returns true if this tree rebalances itself on add and remove.
+	 */
+	public boolean isBalanced() {
+		return balanced;
+	}
 
 	/**
 	 * Adds an element to the tree. Cannot add null or duplicate elements.
@@ -31,41 +249,77 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 		if (root == null) {
 			root = new BSTNode(e);
 			size++;
+			hash += e.hashCode();
+			modCount++;
 			return true;
 		}
-		return addRec(root, e);
-	}
-	private boolean addRec(BSTNode<E> currentNode, E e) {
-		//Don't allow duplicates
-		if ((currentNode.data).equals(e))
-			return false;
-		//Node value is greater than e, go left
-		if ((currentNode.data).compareTo(e) > 0) {
-			//Left node is empty, create new node
-			if (currentNode.left == null) {
-				currentNode.left = new BSTNode(e);
-				size++;
-				return true;
+		//Walk down to the empty spot where e belongs, remembering the path so that
+		//subtree counts can be updated and the tree rebalanced on the way back up
+		int depth = 0;
+		BSTNode<E> currentNode = root;
+		while (true) {
+			int cmp = (currentNode.data).compareTo(e);
+			//Don't allow duplicates
+			if (cmp == 0) {
+				clearPath(depth);
+				return false;
+			}
+			pushPath(depth++, currentNode);
+			//Node value is greater than e, go left
+			if (cmp > 0) {
+				//Left node is empty, create new node
+				if (currentNode.left == null) {
+					copyPath(depth);
+					path[depth - 1].left = new BSTNode(e);
+					break;
+				}
+				currentNode = currentNode.left;
+			}
+			//Node value is smaller than e, go right
+			else {
+				//Right node is empty, create new node
+				if (currentNode.right == null) {
+					copyPath(depth);
+					path[depth - 1].right = new BSTNode(e);
+					break;
+				}
+				currentNode = currentNode.right;
 			}
-			//Left node is populated, recursive call
-			return addRec(currentNode.left, e);
-		}
-		//Node value is smaller than e, go right
-		if (currentNode.right == null) {//Right node is empty, create new node
-			currentNode.right = new BSTNode(e);
-			size++;
-			return true;
 		}
-		//Right node is populated, recursive call
-		return addRec(currentNode.right, e);
+		size++;
+		hash += e.hashCode();
+		modCount++;
+		retrace(depth);
+		return true;
 	}
 
 	/**
-	 * This method is unsupported for this implementation of binary search tree.
+	 * Adds every element of c to the tree. Null and duplicate elements are skipped.
+	 * When c is at least as large as the tree, both are merged in sorted order and
+	 * the tree is rebuilt balanced in linear time instead of adding one at a time.
+	 * @param c The collection of elements to add.
+	 * @return Returns true if the tree changed as a result of the call.
 	 */
 	@Override
-	public boolean addAll(Collection<? extends E> arg0) {
-		throw new UnsupportedOperationException();
+	public boolean addAll(Collection<? extends E> c) {
+		if (c == null)
+			return false;
+		if (c.size() < size) {
+			boolean changed = false;
+			for (E e : c) {
+				if (add(e))
+					changed = true;
+			}
+			return changed;
+		}
+		Iterator<? extends E> added = (c instanceof BST && sameType((BST<?>) c))
+			? c.iterator() : Arrays.asList(sortedDistinct(c)).iterator();
+		E[] merged = newArray(size + c.size());
+		int count = merge(iterator(), added, merged, UNION);
+		if (count == size)
+			return false;
+		replaceWith(merged, count);
+		return true;
 	}
 
 	/**
@@ -74,6 +328,8 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	public void clear() {
 		root = null;
 		size = 0;
+		hash = 0;
+		modCount++;
 	}
 
 	/**
@@ -90,20 +346,18 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 		//Only elements of type E in the tree
 		if (o.getClass() != (root.data).getClass())
 			return false;
-		return containsRec(root, o);
-	}
-	private boolean containsRec(BSTNode currentNode, Object o) {
+		E value = (E) o;
+		BSTNode<E> currentNode = root;
 		//If the node is empty where o should be, then it is not in the tree
-		if (currentNode == null)
-			return false;
-		//o is in the tree
-		if ((currentNode.data).equals(o))
-			return true;
-		if ((currentNode.data).compareTo((E) o) > 0)
-			//o should be to the left of the currentNode
-			return containsRec(currentNode.left, o);
-		//o should be to the right of the currentNode
-		return containsRec(currentNode.right, o);
+		while (currentNode != null) {
+			int cmp = (currentNode.data).compareTo(value);
+			//o is in the tree
+			if (cmp == 0)
+				return true;
+			//o should be to the left of the currentNode if cmp > 0, otherwise to the right
+			currentNode = (cmp > 0) ? currentNode.left : currentNode.right;
+		}
+		return false;
 	}
 
 	/**
@@ -111,7 +365,22 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	 * @param c The collection of elements to be searched for in the tree.
 	 * @return Returns true if all elements in c are in the tree, false if otherwise.
 	 */
+	@SuppressWarnings("unchecked")
 	public boolean containsAll(Collection<?> c) {
+		//Another tree can be checked in one lockstep walk of both trees
+		if (c instanceof BST && sameType((BST<?>) c)) {
+			if (c.size() > size)
+				return false;
+			Iterator<E> mine = iterator();
+			for (E e : (BST<E>) c) {
+				int cmp = -1;
+				while (cmp < 0 && mine.hasNext())
+					cmp = mine.next().compareTo(e);
+				if (cmp != 0)
+					return false;
+			}
+			return true;
+		}
 		for (Object o : c) {
 			if (!this.contains(o))
 				return false;
@@ -121,27 +390,41 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	
 	/**
 	 * Checks to see if this instance of binary search tree is equal to 
-	 * the given argument. The two are considered equal if they are both binary search
-	 * trees with the same elements. Tree structure is not taken into account.
+	 * the given argument. The two are considered equal if the argument is a set
+	 * with the same elements. Tree structure is not taken into account. Two trees
+	 * are compared by walking both in order in lockstep, in linear time.
 	 * @param o The object to be checked for equality.
 	 * @return Returns true if the two objects are equal, false if otherwise.
 	 */
 	public boolean equals(Object o) {
-		if (o == null)
+		if (o == this)
+			return true;
+		if (!(o instanceof Set))
 			return false;
-		try {
-			BST<E> arg = (BST<E>) o;
-			if (size != arg.size)
+		Set<?> arg = (Set<?>) o;
+		if (size != arg.size())
+			return false;
+		if (o instanceof BST) {
+			BST<?> tree = (BST<?>) o;
+			if (hash != tree.hash)
 				return false;
-			for (E e : arg) {
-				if (!this.contains(e))
+			Iterator<?> itr = tree.iterator();
+			for (E e : this) {
+				if (!e.equals(itr.next()))
 					return false;
-				return true;
 			}
-		} catch (ClassCastException e) {
-			return false;
+			return true;
 		}
-		return false;
+		return containsAll(arg);
+	}
+	
+	/**
+	 * Returns the sum of the hash codes of the elements, as defined by Set. The sum
+	 * is kept up to date as the tree changes, so this takes constant time.
+	 * @return Returns the hash code of the tree.
+	 */
+	public int hashCode() {
+		return hash;
 	}
 
 	/**
@@ -161,6 +444,16 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 		return new BSTIter(root, 0);
 	}
 	
+	/**
+	 * Creates a spliterator over the elements in their natural ordering. It splits
+	 * by in-order position using the subtree counts, so each split is O(1), both
+	 * halves know their exact size, and parallel streams divide the tree evenly.
+	 * @return Returns an instance of the spliterator.
+	 */
+	public Spliterator<E> spliterator() {
+		return new BSTSpliterator(0, -1, 0);
+	}
+	
 	/**
 	 * Creates and returns an iterator that iterates through
 	 * the tree via the preorder listing of the elements.
@@ -170,6 +463,35 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 		return new BSTIter(root, 1);
 	}
 	
+	/*
+	 * Returns the in-order index of every element, listed in preorder, in a single
+	 * walk. A node's index is the number of nodes before its subtree, carried down
+	 * as an offset, plus the size of its left subtree.
+	 */
+	int[] preorderRanks() {
+		int[] ranks = new int[size];
+		int i = 0;
+		ArrayDeque<BSTNode<E>> pending = new ArrayDeque<>();
+		int[] pendingOffset = new int[height(root) + 1];
+		BSTNode<E> n = root;
+		int offset = 0;
+		while (true) {
+			while (n != null) {
+				int rank = offset + count(n.left);
+				ranks[i++] = rank;
+				if (n.right != null) {
+					pendingOffset[pending.size()] = rank + 1;
+					pending.push(n.right);
+				}
+				n = n.left;
+			}
+			if (pending.isEmpty())
+				return ranks;
+			n = pending.pop();
+			offset = pendingOffset[pending.size()];
+		}
+	}
+	
 	/**
 	 * Creates and returns an iterator that iterates through
 	 * the tree via the postorder listing of the elements.
@@ -188,62 +510,345 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	 * @author Joanna Klukowska
 	 */
 	public boolean remove(Object o) {
+		if (isEmpty())
+			return false;
+		//No null elements in the tree
 		if (o == null)
 			return false;
-		if (!this.contains(o))
+		//Only elements of type E in the tree
+		if (o.getClass() != (root.data).getClass())
+			return false;
+		return removeNode((E) o);
+	}
+	/*
+	 * Finds the node holding e and unlinks it, replacing a node with two children
+	 * by its in-order predecessor. Walks the tree iteratively, recording the path
+	 * so that a balanced tree can be rebalanced on the way back up.
+	 */
+	private boolean removeNode(E e) {
+		int depth = 0;
+		BSTNode<E> n = root;
+		while (n != null) {
+			int cmp = (n.data).compareTo(e);
+			if (cmp == 0)
+				break;
+			pushPath(depth++, n);
+			n = (cmp > 0) ? n.left : n.right;
+		}
+		if (n == null) {
+			clearPath(depth);
 			return false;
-		root = removeRec(root, (E) o);
+		}
+		hash -= (n.data).hashCode();
+		//Two children, move the predecessor's data up and unlink the predecessor instead
+		int targetDepth = -1;
+		if (n.left != null && n.right != null) {
+			targetDepth = depth;
+			pushPath(depth++, n);
+			n = n.left;
+			while (n.right != null) {
+				pushPath(depth++, n);
+				n = n.right;
+			}
+		}
+		copyPath(depth);
+		if (targetDepth >= 0)
+			path[targetDepth].data = n.data;
+		BSTNode<E> child = (n.left != null) ? n.left : n.right;
+		replaceChild(depth, n, child);
 		size--;
+		modCount++;
+		retrace(depth);
 		return true;
 	}
-	private BSTNode<E> removeRec(BSTNode<E> n, E e){
+
+	/*
+	 * Stores n at the given depth of the path used by add and remove, growing
+	 * the array if the tree is deeper than it has been so far.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void pushPath(int depth, BSTNode<E> n) {
+		if (path == null)
+			path = new BSTNode[INITIAL_PATH_LENGTH];
+		else if (depth == path.length)
+			path = Arrays.copyOf(path, path.length * 2);
+		path[depth] = n;
+	}
+	/*
+	 * Drops the references held in the first depth entries of the path.
+	 */
+	private void clearPath(int depth) {
+		for (int i = 0; i < depth; i++)
+			path[i] = null;
+	}
+	/*
+	 * Makes child take the place of n under the parent at path[depth - 1],
+	 * or as the root if depth is 0.
+	 */
+	/*
+	 * Makes the first depth nodes of the path writable, relinking each copy into the
+	 * copy of its parent, so that a change below them leaves the snapshots' nodes alone.
+	 */
+	private void copyPath(int depth) {
+		for (int i = 0; i < depth; i++) {
+			BSTNode<E> n = writable(path[i]);
+			if (n != path[i]) {
+				replaceChild(i, path[i], n);
+				path[i] = n;
+			}
+		}
+	}
+	/*
+	 * Returns n if it was created since the last snapshot, otherwise a new copy of
+	 * it with the same data, children, height and count.
+	 */
+	private BSTNode<E> writable(BSTNode<E> n) {
+		if (n == null || n.version == epoch)
+			return n;
+		BSTNode<E> copy = new BSTNode<E>(n.data);
+		copy.left = n.left;
+		copy.right = n.right;
+		copy.height = n.height;
+		copy.count = n.count;
+		return copy;
+	}
+	private void replaceChild(int depth, BSTNode<E> n, BSTNode<E> child) {
+		if (depth == 0)
+			root = child;
+		else if (path[depth - 1].left == n)
+			path[depth - 1].left = child;
+		else
+			path[depth - 1].right = child;
+	}
+	/*
+	 * Updates every node on the path from path[depth - 1] back up to the root,
+	 * rebalancing them as well if the tree is in balanced mode.
+	 */
+	private void retrace(int depth) {
+		for (int i = depth - 1; i >= 0; i--) {
+			BSTNode<E> n = path[i];
+			path[i] = null;
+			if (!balanced) {
+				update(n);
+				continue;
+			}
+			BSTNode<E> replacement = rebalance(n);
+			if (replacement != n)
+				replaceChild(i, n, replacement);
+		}
+	}
+
+	/*
+	 * Recomputes the height and count of n and performs the AVL rotation(s) needed if the
+	 * heights of its subtrees differ by more than one. Returns the new root of
+	 * the subtree.
+	 */
+	private BSTNode<E> rebalance(BSTNode<E> n) {
 		if (n == null)
 			return null;
-		else if ((n.data).compareTo(e) > 0) 
-			n.left = removeRec(n.left, e);
-		else if ((n.data).compareTo(e) < 0)
-			n.right = removeRec(n.right, e);
-		else {
-			n = removeNode(n);
+		update(n);
+		int balance = height(n.left) - height(n.right);
+		if (balance > 1) {
+			//Left heavy, left-right case needs the left child rotated first
+			if (height(n.left.left) < height(n.left.right))
+				n.left = rotateLeft(n.left);
+			return rotateRight(n);
+		}
+		if (balance < -1) {
+			//Right heavy, right-left case needs the right child rotated first
+			if (height(n.right.right) < height(n.right.left))
+				n.right = rotateRight(n.right);
+			return rotateLeft(n);
 		}
 		return n;
 	}
-	private BSTNode<E> removeNode(BSTNode<E> n){
-		if (n.left == null)
-			return n.right;
-		if (n.right == null)
-			return n.left;
-		E data = getPredecessor(n);
-		n.data = data;
-		n.left = removeRec(n.left, data);
-		return n;
+	private BSTNode<E> rotateRight(BSTNode<E> n) {
+		n = writable(n);
+		BSTNode<E> pivot = writable(n.left);
+		n.left = pivot.right;
+		pivot.right = n;
+		update(n);
+		update(pivot);
+		return pivot;
 	}
-	private E getPredecessor(BSTNode<E> n) {
-		if (n.left == null) {
-			return null;
+	private BSTNode<E> rotateLeft(BSTNode<E> n) {
+		n = writable(n);
+		BSTNode<E> pivot = writable(n.right);
+		n.right = pivot.left;
+		pivot.left = n;
+		update(n);
+		update(pivot);
+		return pivot;
+	}
+	private int height(BSTNode<E> n) {
+		return (n == null) ? 0 : n.height;
+	}
+	private int count(BSTNode<E> n) {
+		return (n == null) ? 0 : n.count;
+	}
+	/*
+	 * Recomputes the height and subtree count of n from its children.
+	 */
+	private void update(BSTNode<E> n) {
+		n.height = 1 + Math.max(height(n.left), height(n.right));
+		n.count = 1 + count(n.left) + count(n.right);
+	}
+
+	/**
+	 * Removes every element of c from the tree. When c is another tree, this is a
+	 * linear merge of both trees followed by a linear rebuild.
+	 * @param c The collection of elements to remove.
+	 * @return Returns true if the tree changed as a result of the call.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean removeAll(Collection<?> c) {
+		if (c == null || isEmpty())
+			return false;
+		if (c instanceof BST && sameType((BST<?>) c)) {
+			E[] kept = newArray(size);
+			int count = merge(iterator(), ((BST<E>) c).iterator(), kept, DIFFERENCE);
+			if (count == size)
+				return false;
+			replaceWith(kept, count);
+			return true;
+		}
+		boolean changed = false;
+		for (Object o : c) {
+			if (remove(o))
+				changed = true;
+		}
+		return changed;
+	}
+
+	/**
+	 * Removes every element of the tree that is not in c. When c is another tree,
+	 * this is a linear merge of both trees; otherwise the tree is walked once,
+	 * checking each element against c (copied into a hash set first if c is not a
+	 * set), and then rebuilt in linear time.
+	 * @param c The collection of elements to keep.
+	 * @return Returns true if the tree changed as a result of the call.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean retainAll(Collection<?> c) {
+		if (c == null || isEmpty())
+			return false;
+		E[] kept = newArray(size);
+		int count = 0;
+		if (c instanceof BST && sameType((BST<?>) c)) {
+			count = merge(iterator(), ((BST<E>) c).iterator(), kept, INTERSECTION);
 		} else {
-			BSTNode<E> current = n.left;
-			while (current.right != null) {
-				current = current.right;
+			Collection<?> lookup = (c instanceof Set) ? c : new HashSet<Object>(c);
+			for (E e : this) {
+				if (lookup.contains(e))
+					kept[count++] = e;
 			}
-			return current.data;
 		}
+		if (count == size)
+			return false;
+		replaceWith(kept, count);
+		return true;
 	}
 
 	/**
-	 *  This method is unsupported for this implementation of binary search tree.
+	 * Returns a new tree holding every element that is in this tree or in other.
+	 * Runs in O(n + m) by merging the two trees in order.
+	 * @param other The other tree.
+	 * @return Returns the union, in the same mode (balanced or not) as this tree.
+	 * @throws IllegalArgumentException When other is null.
 	 */
-	@Override
-	public boolean removeAll(Collection<?> arg0) {
-		throw new UnsupportedOperationException();
+	public BST<E> union(BST<E> other) throws IllegalArgumentException {
+		return setOperation(other, UNION);
 	}
 
 	/**
-	 *  This method is unsupported for this implementation of binary search tree.
+	 * Returns a new tree holding every element that is in both this tree and other.
+	 * Runs in O(n + m) by merging the two trees in order.
+	 * @param other The other tree.
+	 * @return Returns the intersection, in the same mode (balanced or not) as this tree.
+	 * @throws IllegalArgumentException When other is null.
 	 */
-	@Override
-	public boolean retainAll(Collection<?> arg0) {
-		throw new UnsupportedOperationException();
+	public BST<E> intersection(BST<E> other) throws IllegalArgumentException {
+		return setOperation(other, INTERSECTION);
+	}
+
+	/**
+	 * Returns a new tree holding every element of this tree that is not in other.
+	 * Runs in O(n + m) by merging the two trees in order.
+	 * @param other The other tree.
+	 * @return Returns the difference, in the same mode (balanced or not) as this tree.
+	 * @throws IllegalArgumentException When other is null.
+	 */
+	public BST<E> difference(BST<E> other) throws IllegalArgumentException {
+		return setOperation(other, DIFFERENCE);
+	}
+
+	private BST<E> setOperation(BST<E> other, int operation) throws IllegalArgumentException {
+		if (other == null)
+			throw new IllegalArgumentException("Set operations in class BST.java require a non-null tree");
+		E[] result = newArray((operation == UNION) ? size + other.size : size);
+		int count = merge(iterator(), other.iterator(), result, operation);
+		BST<E> tree = new BST<>(balanced);
+		tree.replaceWith(result, count);
+		return tree;
+	}
+
+	/*
+	 * Merges two ascending sequences in a single pass, writing the elements that
+	 * belong in the union, intersection or difference (a minus b) to out.
+	 * Returns the number of elements written.
+	 */
+	private int merge(Iterator<? extends E> a, Iterator<? extends E> b, E[] out, int operation) {
+		int count = 0;
+		E x = a.hasNext() ? a.next() : null;
+		E y = b.hasNext() ? b.next() : null;
+		while (x != null || (y != null && operation == UNION)) {
+			//Intersection is complete once either side runs out
+			if (y == null && operation == INTERSECTION)
+				break;
+			int cmp = (x == null) ? 1 : (y == null) ? -1 : x.compareTo(y);
+			if (cmp < 0) {
+				if (operation != INTERSECTION)
+					out[count++] = x;
+				x = a.hasNext() ? a.next() : null;
+			} else if (cmp > 0) {
+				if (operation == UNION)
+					out[count++] = y;
+				y = b.hasNext() ? b.next() : null;
+			} else {
+				if (operation != DIFFERENCE)
+					out[count++] = x;
+				x = a.hasNext() ? a.next() : null;
+				y = b.hasNext() ? b.next() : null;
+			}
+		}
+		return count;
+	}
+
+	/*
+	 * Replaces the contents of the tree with the first count elements of sorted,
+	 * rebuilt perfectly balanced.
+	 */
+	private void replaceWith(E[] sorted, int count) {
+		setContents(Arrays.asList(sorted).subList(0, count).iterator(), count);
+	}
+
+	/*
+	 * Creates a buffer for elements of the tree. E erases to Comparable, so a
+	 * Comparable array is what an E[] is at runtime.
+	 */
+	@SuppressWarnings("unchecked")
+	private E[] newArray(int length) {
+		return (E[]) new Comparable<?>[length];
+	}
+
+	/*
+	 * Two trees can be merged only if they hold the same class of elements,
+	 * which is always the case if either is empty.
+	 */
+	private boolean sameType(BST<?> other) {
+		return root == null || other.root == null || (root.data).getClass() == (other.root.data).getClass();
 	}
 
 	/**
@@ -268,20 +873,94 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 		//Only elements of type E in the tree
 		if (value.getClass() != (root.data).getClass())
 			return null;
-		return getRec(root, value);
+		BSTNode<E> currentNode = root;
+		//If the node is empty where value should be, then it is not in the tree
+		while (currentNode != null) {
+			int cmp = (currentNode.data).compareTo(value);
+			//value is in the tree
+			if (cmp == 0)
+				return currentNode.data;
+			//value should be to the left of the currentNode if cmp > 0, otherwise to the right
+			currentNode = (cmp > 0) ? currentNode.left : currentNode.right;
+		}
+		return null;
 	}
-	private E getRec(BSTNode<E> currentNode, E value) {
-		//If the node is empty where o should be, then it is not in the tree
-		if (currentNode == null)
-			return null;
-		//o is in the tree
-		if ((currentNode.data).equals(value))
-			return currentNode.data;
-		if ((currentNode.data).compareTo(value) > 0)
-			//o should be to the left of the currentNode
-			return getRec(currentNode.left, value);
-		//o should be to the right of the currentNode
-		return getRec(currentNode.right, value);
+	
+	/**
+	 * Returns the number of elements in the tree strictly less than the given
+	 * element, which is also the index e has or would have in the natural ordering.
+	 * @param e The element to rank.
+	 * @return Returns the rank of e.
+	 * @throws IllegalArgumentException When e is null.
+	 */
+	public int rank(E e) throws IllegalArgumentException {
+		if (e == null)
+			throw new IllegalArgumentException("rank(E e) in class BST.java cannot rank null");
+		return countLess(e, false);
+	}
+	/*
+	 * Counts the elements less than e, or less than or equal to e if inclusive
+	 * is true, by adding up the left subtree counts along a single descent.
+	 */
+	private int countLess(E e, boolean inclusive) {
+		int result = 0;
+		BSTNode<E> n = root;
+		while (n != null) {
+			int cmp = e.compareTo(n.data);
+			if (cmp < 0) {
+				n = n.left;
+			} else if (cmp == 0) {
+				return result + count(n.left) + (inclusive ? 1 : 0);
+			} else {
+				result += count(n.left) + 1;
+				n = n.right;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the element at the given index in the natural ordering of the tree.
+	 * @param index The index of the element, 0 being the lowest element.
+	 * @return Returns the element at the given index.
+	 * @throws IndexOutOfBoundsException When the given index is not in the tree.
+	 */
+	public E select(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException();
+		return select(root, index);
+	}
+	/*
+	 * Finds the element at the given index of the subtree rooted at n, using the
+	 * subtree counts to pick a side at each node.
+	 */
+	private E select(BSTNode<E> n, int index) {
+		while (true) {
+			int leftCount = count(n.left);
+			if (index < leftCount) {
+				n = n.left;
+			} else if (index == leftCount) {
+				return n.data;
+			} else {
+				index -= leftCount + 1;
+				n = n.right;
+			}
+		}
+	}
+	
+	/**
+	 * Counts the elements e in the tree with lo <= e <= hi.
+	 * @param lo The lower bound, inclusive.
+	 * @param hi The upper bound, inclusive.
+	 * @return Returns the number of elements in the range, 0 if lo is greater than hi.
+	 * @throws IllegalArgumentException When either bound is null.
+	 */
+	public int countInRange(E lo, E hi) throws IllegalArgumentException {
+		if (lo == null || hi == null)
+			throw new IllegalArgumentException("countInRange(E lo, E hi) in class BST.java requires non-null bounds");
+		if (lo.compareTo(hi) > 0)
+			return 0;
+		return countLess(hi, true) - countLess(lo, false);
 	}
 	
 	/**
@@ -290,11 +969,38 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	 * @return Returns a string representation of the tree.
 	 */
 	public String toString() {
-		String result = "[";
+		StringBuilder result = new StringBuilder(2 + 4 * size);
+		try {
+			appendTo(result, Integer.MAX_VALUE);
+		} catch (IOException e) {
+			//StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return result.toString();
+	}
+	
+	/**
+	 * Writes the same representation as toString to out in a single in-order walk,
+	 * without building the whole string in memory. Output stops after maxElements
+	 * elements, with "..." marking that elements were left out.
+	 * @param out Where the representation is written.
+	 * @param maxElements The most elements to write, Integer.MAX_VALUE for all of them.
+	 * @throws IOException When out throws.
+	 * @throws IllegalArgumentException When maxElements is negative.
+	 */
+	public void appendTo(Appendable out, int maxElements) throws IOException, IllegalArgumentException {
+		if (maxElements < 0)
+			throw new IllegalArgumentException("appendTo in class BST.java requires a non-negative limit");
+		out.append('[');
+		int written = 0;
 		for (E e : this) {
-			result = result + e.toString() + ", ";
+			if (written++ == maxElements) {
+				out.append("...");
+				break;
+			}
+			out.append(String.valueOf(e)).append(", ");
 		}
-		return result + "]";
+		out.append(']');
 	}
 	
 	/**
@@ -305,39 +1011,76 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	*/
 	public String toStringTreeFormat() {
 		StringBuilder s = new StringBuilder();
-		preOrderPrint(root, 0, s);
+		try {
+			preOrderPrint(s, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		} catch (IOException e) {
+			//StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
 		return s.toString();
 	}
+	
+	/**
+	 * Writes the same representation as toStringTreeFormat to out, node by node.
+	 * Subtrees below maxDepth are written as "..." instead of being expanded, and
+	 * output stops with a final "..." once maxNodes elements have been written,
+	 * so that dumps of large trees stay bounded.
+	 * @param out Where the representation is written.
+	 * @param maxDepth The deepest level to expand, the root being level 0.
+	 * @param maxNodes The most elements to write, Integer.MAX_VALUE for all of them.
+	 * @throws IOException When out throws.
+	 * @throws IllegalArgumentException When either limit is negative.
+	 */
+	public void appendTreeFormat(Appendable out, int maxDepth, int maxNodes)
+			throws IOException, IllegalArgumentException {
+		if (maxDepth < 0 || maxNodes < 0)
+			throw new IllegalArgumentException("appendTreeFormat in class BST.java requires non-negative limits");
+		preOrderPrint(out, maxDepth, maxNodes);
+	}
 	/*
 	*Uses  pre - order  traversal  to  produce  a  tree - like  representation  of  this  BST .
-	*@param  tree  the  root  of  the  current  subtree
-	*@param  level  level  ( depth )  of  the  current  recursive  call  in  the  tree  to
-	*determine  the  indentation  of  each  item
-	*@param  output  the  string  that  accumulated  the  string  representation  of  this
-	*BST
+	*Walks the tree with an explicit stack of nodes and their levels, so deep trees
+	*cannot overflow the call stack, and writes each line straight to the output.
+	*@param  output  where the representation of this BST is written
+	*@param  maxDepth  subtrees below this level are written as "..."
+	*@param  maxNodes  the most elements to write before stopping with "..."
 	*/
-	private void preOrderPrint(BSTNode<E> tree, int level, StringBuilder output) {
-		if (tree != null) {
-			String spaces = "\n";
+	private void preOrderPrint(Appendable output, int maxDepth, int maxNodes) throws IOException {
+		ArrayList<BSTNode<E>> nodes = new ArrayList<>(); //Holds the null children too, so not an ArrayDeque
+		int[] levels = new int[16];
+		nodes.add(root);
+		levels[0] = 0;
+		int written = 0;
+		while (!nodes.isEmpty()) {
+			int top = nodes.size() - 1;
+			BSTNode<E> tree = nodes.remove(top);
+			int level = levels[top];
+			output.append('\n');
 			if (level > 0) {
 				for (int i = 0; i < level - 1; i++)
-					spaces += "   ";
-				spaces += "|--";
+					output.append("   ");
+				output.append("|--");
 			}
-			output.append(spaces);
-			output.append(tree.data);
-			preOrderPrint(tree.left, level + 1, output);
-			preOrderPrint(tree.right , level + 1, output);
-		}
-		else {// print  the  null  children
-			String spaces = "\n";
-			if (level > 0) {
-				for (int i = 0; i < level - 1; i++)
-					spaces += "   ";
-				spaces += "|--";
+			if (tree == null) {// print  the  null  children
+				output.append("null");
+				continue;
+			}
+			if (level > maxDepth) {
+				output.append("...");
+				continue;
+			}
+			if (written++ == maxNodes) {
+				output.append("...");
+				return;
 			}
-			output.append(spaces);
-			output.append("null");
+			output.append(String.valueOf(tree.data));
+			//Push the right child first so that the left subtree is printed first
+			if (top + 2 > levels.length)
+				levels = Arrays.copyOf(levels, levels.length * 2);
+			levels[top] = level + 1;
+			nodes.add(tree.right);
+			levels[top + 1] = level + 1;
+			nodes.add(tree.left);
 		}
 	}
 	
@@ -347,9 +1090,23 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	 * or null if there is no such element.
 	 */
 	public E ceiling(E e) {
-		if (this.contains(e))
-			return e;
-		return higher(e);
+		if (e == null)
+			return null;
+		//The answer is e itself if found, otherwise the last node at which the walk turned left
+		E result = null;
+		BSTNode<E> n = root;
+		while (n != null) {
+			int cmp = e.compareTo(n.data);
+			if (cmp == 0)
+				return n.data;
+			if (cmp < 0) {
+				result = n.data;
+				n = n.left;
+			} else {
+				n = n.right;
+			}
+		}
+		return result;
 	}
 	
 	/**
@@ -359,19 +1116,28 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	public Object clone() {
 		if (root == null)
 			return null;
-		BST<E> result = new BST<>();
-		Iterator<E> itr = preorderIterator();
-		while(itr.hasNext()) {
-			result.add(itr.next());
-		}
+		//The in-order walk is already sorted, so the copy can be built in linear time
+		BST<E> result = new BST<>(balanced);
+		result.setContents(iterator(), size);
 		return result;
 	}
 	
 	/**
 	 * @return Returns the first (lowest) element currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
+	 */
+	public E first() throws NoSuchElementException {
+		if (root == null)
+			throw new NoSuchElementException();
+		return lowest();
+	}
+	/*
+	 * Returns the lowest element in the tree, or null if it is empty.
 	 */
-	public E first() {
+	private E lowest() {
 		BSTNode<E> cursor = root;
+		if (cursor == null)
+			return null;
 		while (cursor.left != null) {
 			cursor = cursor.left;
 		}
@@ -384,9 +1150,23 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	 * or null if there is no such element
 	 */
 	public E floor (E e) {
-		if (this.contains(e))
-			return e;
-		return lower(e);
+		if (e == null)
+			return null;
+		//The answer is e itself if found, otherwise the last node at which the walk turned right
+		E result = null;
+		BSTNode<E> n = root;
+		while (n != null) {
+			int cmp = e.compareTo(n.data);
+			if (cmp == 0)
+				return n.data;
+			if (cmp > 0) {
+				result = n.data;
+				n = n.right;
+			} else {
+				n = n.left;
+			}
+		}
+		return result;
 	}
 	
 	/**
@@ -397,31 +1177,36 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	public E higher (E e) {
 		if (e == null)
 			return null;
-		return higherRec(root, e, new BSTNode<E>(null));
-	}
-	private E higherRec(BSTNode<E> n, E e, BSTNode<E> saved) {
-		if (e.compareTo(n.data) < 0) {
-			if (n.left == null) {
-				try {
-					return ((saved.data).compareTo(n.data) < 0) ? saved.data : n.data;
-				} catch (NullPointerException ex) {
-					return n.data;
-				}
+		//The answer is the last node at which the walk turned left
+		E result = null;
+		BSTNode<E> n = root;
+		while (n != null) {
+			if (e.compareTo(n.data) < 0) {
+				result = n.data;
+				n = n.left;
+			} else {
+				n = n.right;
 			}
-			return higherRec(n.left, e, n);
-		}
-		else {
-			if (n.right == null)
-				return null;
-			return higherRec(n.right, e, saved);
 		}
+		return result;
 	}
 	
 	/**
 	 * @return Returns the last (highest) element currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
 	 */
-	public E last() {
+	public E last() throws NoSuchElementException {
+		if (root == null)
+			throw new NoSuchElementException();
+		return highest();
+	}
+	/*
+	 * Returns the highest element in the tree, or null if it is empty.
+	 */
+	private E highest() {
 		BSTNode<E> cursor = root;
+		if (cursor == null)
+			return null;
 		while (cursor.right != null) {
 			cursor = cursor.right;
 		}
@@ -436,24 +1221,142 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 	public E lower (E e) {
 		if (e == null)
 			return null;
-		return lowerRec(root, e, new BSTNode<E>(null));
-	}
-	private E lowerRec(BSTNode<E> n, E e, BSTNode<E> saved) {
-		if (e.compareTo(n.data) > 0) {
-			if (n.right == null) {
-				try {
-					return ((saved.data).compareTo(n.data) < 0) ? saved.data : n.data;
-				} catch (NullPointerException ex) {
-					return n.data;
-				}
+		//The answer is the last node at which the walk turned right
+		E result = null;
+		BSTNode<E> n = root;
+		while (n != null) {
+			if (e.compareTo(n.data) > 0) {
+				result = n.data;
+				n = n.right;
+			} else {
+				n = n.left;
 			}
-			return lowerRec(n.right, e, saved);
-		}
-		else {
-			if (n.left == null) 
-				return null;
-			return lowerRec(n.left, e, n);
 		}
+		return result;
+	}
+	
+	/**
+	 * Removes and returns the first (lowest) element of the tree.
+	 * @return Returns the removed element, or null if the tree is empty.
+	 */
+	public E pollFirst() {
+		E e = lowest();
+		if (e != null)
+			removeNode(e);
+		return e;
+	}
+	
+	/**
+	 * Removes and returns the last (highest) element of the tree.
+	 * @return Returns the removed element, or null if the tree is empty.
+	 */
+	public E pollLast() {
+		E e = highest();
+		if (e != null)
+			removeNode(e);
+		return e;
+	}
+	
+	/**
+	 * The tree always uses the natural ordering of its elements.
+	 * @return Returns null.
+	 */
+	public Comparator<? super E> comparator() {
+		return null;
+	}
+	
+	/**
+	 * Returns a view of the elements in the tree between fromElement and toElement.
+	 * The view is backed by the tree and walks only the elements in its range.
+	 * @param fromElement The low end of the range.
+	 * @param fromInclusive True if fromElement itself is in the range.
+	 * @param toElement The high end of the range.
+	 * @param toInclusive True if toElement itself is in the range.
+	 * @return Returns the view of the range.
+	 * @throws IllegalArgumentException When either bound is null, or fromElement is
+	 * greater than toElement.
+	 */
+	public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive)
+			throws IllegalArgumentException {
+		return new RangeView(false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+	}
+	
+	/**
+	 * Returns a view of the elements from fromElement, inclusive, to toElement, exclusive.
+	 * @see #subSet(Comparable, boolean, Comparable, boolean)
+	 */
+	public NavigableSet<E> subSet(E fromElement, E toElement) throws IllegalArgumentException {
+		return subSet(fromElement, true, toElement, false);
+	}
+	
+	/**
+	 * Returns a view of the elements in the tree less than (or equal to, if inclusive
+	 * is true) toElement. The view is backed by the tree.
+	 * @param toElement The high end of the range.
+	 * @param inclusive True if toElement itself is in the range.
+	 * @return Returns the view of the range.
+	 * @throws IllegalArgumentException When toElement is null.
+	 */
+	public NavigableSet<E> headSet(E toElement, boolean inclusive) throws IllegalArgumentException {
+		return new RangeView(true, null, false, false, toElement, inclusive, false);
+	}
+	
+	/**
+	 * Returns a view of the elements strictly less than toElement.
+	 * @see #headSet(Comparable, boolean)
+	 */
+	public NavigableSet<E> headSet(E toElement) throws IllegalArgumentException {
+		return headSet(toElement, false);
+	}
+	
+	/**
+	 * Returns a view of the elements in the tree greater than (or equal to, if inclusive
+	 * is true) fromElement. The view is backed by the tree.
+	 * @param fromElement The low end of the range.
+	 * @param inclusive True if fromElement itself is in the range.
+	 * @return Returns the view of the range.
+	 * @throws IllegalArgumentException When fromElement is null.
+	 */
+	public NavigableSet<E> tailSet(E fromElement, boolean inclusive) throws IllegalArgumentException {
+		return new RangeView(false, fromElement, inclusive, true, null, false, false);
+	}
+	
+	/**
+	 * Returns a view of the elements greater than or equal to fromElement.
+	 * @see #tailSet(Comparable, boolean)
+	 */
+	public NavigableSet<E> tailSet(E fromElement) throws IllegalArgumentException {
+		return tailSet(fromElement, true);
+	}
+	
+	/**
+	 * @return Returns a view of the tree in reverse order, backed by the tree.
+	 */
+	public NavigableSet<E> descendingSet() {
+		return new RangeView(true, null, false, true, null, false, true);
+	}
+	
+	/**
+	 * Creates and returns an iterator that iterates through
+	 * the tree in reverse natural order.
+	 * @return Returns an instance of the iterator.
+	 */
+	public Iterator<E> descendingIterator() {
+		return new RangeIter(false, true, null, false, true, null, false);
+	}
+	
+	/**
+	 * Returns an unmodifiable list of the elements, in ascending order, as they are
+	 * now. Taking a snapshot is O(1): the list reads the nodes of the tree in place.
+	 * After that, add and remove copy only the nodes they change, the root-to-node
+	 * path and any rotated nodes, before changing them, so the snapshot is unaffected
+	 * by later changes and can be iterated while the tree is being modified.
+	 * get(int) uses the subtree counts and is O(height).
+	 * @return Returns the snapshot of the elements.
+	 */
+	public List<E> snapshot() {
+		epoch++;
+		return new Snapshot(root, size);
 	}
 	
 	@Override
@@ -485,6 +1388,11 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 		private E data;
 		private BSTNode<E> left;
 		private BSTNode<E> right;
+		private int height = 1;
+		//Number of nodes in the subtree rooted at this node
+		private int count = 1;
+		//Epoch of the tree when the node was created, it may only be changed in place in that epoch
+		private int version = epoch;
 
 		public BSTNode(E arg0) {
 			this.data = arg0;
@@ -497,72 +1405,665 @@ public class BST<E extends Comparable<E>> implements Collection<E>, Iterable<E>{
 
 	}
 	
+	/*
+	 * Unmodifiable list over the nodes of the tree at the time snapshot() was called.
+	 * The tree copies any of these nodes before changing it, so they stay as they were.
+	 */
+	private class Snapshot extends AbstractList<E>{
+		
+		private final BSTNode<E> top;
+		private final int size;
+		
+		public Snapshot(BSTNode<E> top, int size) {
+			this.top = top;
+			this.size = size;
+		}
+		
+		public E get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException();
+			return select(top, index);
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		/*
+		 * In-order walk with a stack of the nodes whose right subtree is still to come
+		 */
+		public Iterator<E> iterator() {
+			return new Iterator<E>() {
+				private ArrayDeque<BSTNode<E>> path = new ArrayDeque<>();
+				{
+					pushLeft(top);
+				}
+				
+				private void pushLeft(BSTNode<E> n) {
+					while (n != null) {
+						path.push(n);
+						n = n.left;
+					}
+				}
+				
+				public boolean hasNext() {
+					return !path.isEmpty();
+				}
+				
+				public E next() {
+					if (path.isEmpty())
+						throw new NoSuchElementException();
+					BSTNode<E> n = path.pop();
+					pushLeft(n.right);
+					return n.data;
+				}
+			};
+		}
+		
+	}
+	
+	/*
+	 * Wraps the iterator given to fromSorted, rejecting null elements and
+	 * elements that are not strictly greater than the one before them.
+	 */
+	private static class AscendingIterator<E extends Comparable<E>> implements Iterator<E>{
+		
+		private Iterator<? extends E> source;
+		private E last;
+		
+		public AscendingIterator(Iterator<? extends E> source) {
+			this.source = source;
+		}
+
+		public boolean hasNext() {
+			return source.hasNext();
+		}
+
+		public E next() {
+			if (!source.hasNext())
+				throw new IllegalArgumentException("fromSorted in class BST.java was given fewer elements than its size");
+			E e = source.next();
+			if (e == null)
+				throw new IllegalArgumentException("fromSorted in class BST.java cannot add null elements");
+			if (last != null && last.compareTo(e) >= 0)
+				throw new IllegalArgumentException("fromSorted in class BST.java requires strictly ascending elements");
+			last = e;
+			return e;
+		}
+		
+	}
+	
 	/*
 	 * Creates three different iteraters, inorder, preorder, or postorder depending
-	 * on the arguments of the constructor. Each constructor mode places elements into
-	 * a stack in reverse order, such that, when hasNext()/next() is called, the elements
-	 * are returned in their proper order.
+	 * on the arguments of the constructor. The iterator walks the tree lazily, only
+	 * keeping the nodes on the path from the root to the current position in a stack,
+	 * so creating it is O(1) and it never holds more than O(height) nodes. Since the
+	 * walk is lazy, next() fails fast if the tree was changed after the iterator was
+	 * created.
 	 */
 	private class BSTIter implements Iterator<E>{
 		
-		private Stack<E> tree = new Stack<>();
+		private ArrayDeque<BSTNode<E>> path = new ArrayDeque<>();
+		private int mode;
+		private int expectedModCount = modCount;
 		
 		/*
-		 * Populates the stack based on the given int mode, 0 denotes
-		 * an inorder stack, 1 denotes a preorder stack, 2 denotes
-		 * a postorder stack.
+		 * Sets up the stack based on the given int mode, 0 denotes
+		 * an inorder walk, 1 denotes a preorder walk, 2 denotes
+		 * a postorder walk.
 		 */
 		public BSTIter(BSTNode<E> n, int mode) {
+			this.mode = mode;
 			switch(mode) {
-			case 0: //In-order stack construction
-				inOrderRec(n, tree);
+			case 0: //In-order, start at the leftmost node
+				pushLeft(n);
 				break;
-			case 1: //Pre-order stack construction
-				preOrderRec(n, tree);
+			case 1: //Pre-order, start at the root
+				if (n != null)
+					path.push(n);
 				break;
-			case 2: //Post-order stack construction
-				postOrderRec(n, tree);
+			case 2: //Post-order, start at the first leaf
+				pushFirstLeaf(n);
 				break;
 			}
 		}
 		/*
-		 * Populates the stack in an inorder manner
+		 * Pushes n and its chain of left children onto the stack
 		 */
-		private void inOrderRec(BSTNode<E> n, Stack tree) {
-			if (n == null) 
-				return;
-			inOrderRec(n.right, tree);
-			tree.push(n.data);
-			inOrderRec(n.left, tree);
-			return;
+		private void pushLeft(BSTNode<E> n) {
+			while (n != null) {
+				path.push(n);
+				n = n.left;
+			}
 		}
 		/*
-		 * Populates the stack in a preorder manner
+		 * Pushes the path from n down to the first leaf of its subtree in postorder,
+		 * preferring left children over right children
 		 */
-		private void preOrderRec(BSTNode<E> n, Stack tree) {
-			if (n == null)
-				return;
-			preOrderRec(n.right, tree);
-			preOrderRec(n.left, tree);
-			tree.push(n.data);
+		private void pushFirstLeaf(BSTNode<E> n) {
+			while (n != null) {
+				path.push(n);
+				n = (n.left != null) ? n.left : n.right;
+			}
+		}
+
+		public boolean hasNext() {
+			return (!path.isEmpty());
+		}
+
+		public E next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (path.isEmpty())
+				throw new NoSuchElementException();
+			BSTNode<E> n = path.pop();
+			switch(mode) {
+			case 0: //Next in-order node is the leftmost node of the right subtree
+				pushLeft(n.right);
+				break;
+			case 1: //Right child is visited after the whole left subtree
+				if (n.right != null)
+					path.push(n.right);
+				if (n.left != null)
+					path.push(n.left);
+				break;
+			case 2: //Parent is visited after its right subtree if n was its left child
+				BSTNode<E> parent = path.peek();
+				if (parent != null && parent.left == n)
+					pushFirstLeaf(parent.right);
+				break;
+			}
+			return n.data;
 		}
+		
+	}
+
+	/*
+	 * Iterates in order (or in reverse order) over the elements between two bounds.
+	 * The stack is seeded with the path to the first element in range, so the
+	 * iterator costs O(log n) to create and O(1) amortized per element. remove()
+	 * costs O(log n), since the stack is reseeded from the removed element.
+	 */
+	private class RangeIter implements Iterator<E>{
+		
+		private ArrayDeque<BSTNode<E>> path = new ArrayDeque<>();
+		private boolean ascending;
+		//Iteration stops at the first element past the fence
+		private E fence;
+		private boolean fenceInclusive;
+		private boolean noFence;
+		private int expectedModCount = modCount;
+		private E lastReturned;
+		
 		/*
-		 * Populates the stack in a postorder manner
+		 * lo and hi are the bounds of the range, fromStart and toEnd denote an
+		 * unbounded low or high end.
 		 */
-		private void postOrderRec(BSTNode<E> n, Stack tree) {
-			if (n == null)
-				return;
-			tree.push(n.data);
-			postOrderRec(n.right, tree);
-			postOrderRec(n.left, tree);	
+		public RangeIter(boolean ascending, boolean fromStart, E lo, boolean loInclusive,
+				boolean toEnd, E hi, boolean hiInclusive) {
+			this.ascending = ascending;
+			if (ascending) {
+				fence = hi;
+				fenceInclusive = hiInclusive;
+				noFence = toEnd;
+				seed(lo, loInclusive, fromStart);
+			} else {
+				fence = lo;
+				fenceInclusive = loInclusive;
+				noFence = fromStart;
+				seed(hi, hiInclusive, toEnd);
+			}
+		}
+		/*
+		 * Fills the stack with the path to the first element after from in iteration
+		 * order (or equal to it when inclusive is true), or to the very first element
+		 * when unbounded is true.
+		 */
+		private void seed(E from, boolean inclusive, boolean unbounded) {
+			path.clear();
+			BSTNode<E> n = root;
+			if (ascending) {
+				//Keep the nodes at which the walk turned left, the top is the first in range
+				while (n != null) {
+					if (unbounded || beyond(from, n.data, inclusive)) {
+						path.push(n);
+						n = n.left;
+					} else {
+						n = n.right;
+					}
+				}
+			} else {
+				//Keep the nodes at which the walk turned right, the top is the last in range
+				while (n != null) {
+					if (unbounded || beyond(n.data, from, inclusive)) {
+						path.push(n);
+						n = n.right;
+					} else {
+						n = n.left;
+					}
+				}
+			}
+		}
+		/*
+		 * Returns true if b comes after a, or is equal to it when inclusive is true.
+		 */
+		private boolean beyond(E a, E b, boolean inclusive) {
+			int cmp = a.compareTo(b);
+			return (cmp < 0) || (cmp == 0 && inclusive);
 		}
 
 		public boolean hasNext() {
-			return (!tree.isEmpty());
+			if (path.isEmpty())
+				return false;
+			if (noFence)
+				return true;
+			E next = path.peek().data;
+			return ascending ? beyond(next, fence, fenceInclusive) : beyond(fence, next, fenceInclusive);
 		}
 
 		public E next() {
-			return tree.pop();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (!hasNext())
+				throw new NoSuchElementException();
+			BSTNode<E> n = path.pop();
+			BSTNode<E> child = ascending ? n.right : n.left;
+			while (child != null) {
+				path.push(child);
+				child = ascending ? child.left : child.right;
+			}
+			lastReturned = n.data;
+			return n.data;
+		}
+
+		/*
+		 * Removing rebalances (and may path-copy) the tree, so the nodes on the
+		 * stack can no longer be trusted. The walk restarts from the element
+		 * after the removed one, which is equivalent to seeding from higher
+		 * (or lower, when descending) of it.
+		 */
+		public void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			removeNode(lastReturned);
+			seed(lastReturned, false, false);
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+		
+	}
+	
+	/*
+	 * A live view of the elements of the tree between two bounds, optionally in
+	 * reverse order. The bounds are always stored in natural order; lo/hi null with
+	 * fromStart/toEnd true means that end of the range is open.
+	 */
+	private class RangeView extends AbstractSet<E> implements NavigableSet<E>{
+		
+		private E lo;
+		private E hi;
+		private boolean fromStart;
+		private boolean toEnd;
+		private boolean loInclusive;
+		private boolean hiInclusive;
+		private boolean descending;
+		
+		public RangeView(boolean fromStart, E lo, boolean loInclusive,
+				boolean toEnd, E hi, boolean hiInclusive, boolean descending) {
+			if ((!fromStart && lo == null) || (!toEnd && hi == null))
+				throw new IllegalArgumentException("Range views of class BST.java cannot have null bounds");
+			if (!fromStart && !toEnd && lo.compareTo(hi) > 0)
+				throw new IllegalArgumentException("Range views of class BST.java require fromElement <= toElement");
+			this.fromStart = fromStart;
+			this.lo = lo;
+			this.loInclusive = loInclusive;
+			this.toEnd = toEnd;
+			this.hi = hi;
+			this.hiInclusive = hiInclusive;
+			this.descending = descending;
+		}
+		
+		/*
+		 * Bound checks, all in natural order
+		 */
+		private boolean tooLow(E e) {
+			if (fromStart)
+				return false;
+			int cmp = e.compareTo(lo);
+			return cmp < 0 || (cmp == 0 && !loInclusive);
+		}
+		private boolean tooHigh(E e) {
+			if (toEnd)
+				return false;
+			int cmp = e.compareTo(hi);
+			return cmp > 0 || (cmp == 0 && !hiInclusive);
+		}
+		private boolean inRange(E e) {
+			return !tooLow(e) && !tooHigh(e);
+		}
+		/*
+		 * Like inRange, but treats the bounds as inclusive when inclusive is false,
+		 * so that an exclusive bound of a nested view may sit on this view's bound
+		 */
+		private boolean inRange(E e, boolean inclusive) {
+			if (inclusive)
+				return inRange(e);
+			return (fromStart || e.compareTo(lo) >= 0) && (toEnd || e.compareTo(hi) <= 0);
+		}
+		private E checkBound(E e, boolean inclusive) {
+			if (e == null)
+				throw new IllegalArgumentException("Range views of class BST.java cannot have null bounds");
+			if (!inRange(e, inclusive))
+				throw new IllegalArgumentException("Bound is outside of this range view");
+			return e;
+		}
+		/*
+		 * Returns e if it is non-null and in range, null otherwise
+		 */
+		private E clamp(E e) {
+			return (e == null || !inRange(e)) ? null : e;
+		}
+		
+		/*
+		 * Navigation in natural order, answering null when there is no such element
+		 */
+		private E absLowest() {
+			if (fromStart)
+				return clamp(lowest());
+			return clamp(loInclusive ? BST.this.ceiling(lo) : BST.this.higher(lo));
+		}
+		private E absHighest() {
+			if (toEnd)
+				return clamp(highest());
+			return clamp(hiInclusive ? BST.this.floor(hi) : BST.this.lower(hi));
+		}
+		private E absCeiling(E e) {
+			return tooLow(e) ? absLowest() : clamp(BST.this.ceiling(e));
+		}
+		private E absHigher(E e) {
+			return tooLow(e) ? absLowest() : clamp(BST.this.higher(e));
+		}
+		private E absFloor(E e) {
+			return tooHigh(e) ? absHighest() : clamp(BST.this.floor(e));
+		}
+		private E absLower(E e) {
+			return tooHigh(e) ? absHighest() : clamp(BST.this.lower(e));
+		}
+
+		public int size() {
+			if (fromStart && toEnd)
+				return BST.this.size;
+			if (BST.this.isEmpty())
+				return 0;
+			int below = fromStart ? 0 : countLess(lo, !loInclusive);
+			int upTo = toEnd ? BST.this.size : countLess(hi, hiInclusive);
+			return Math.max(0, upTo - below);
+		}
+		
+		public boolean isEmpty() {
+			return absLowest() == null;
+		}
+		
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			return BST.this.contains(o) && inRange((E) o);
+		}
+		
+		/*
+		 * Adding an element outside of the view's range is an error
+		 */
+		public boolean add(E e) throws IllegalArgumentException {
+			if (e == null)
+				return false;
+			if (!inRange(e))
+				throw new IllegalArgumentException("Element is outside of this range view");
+			return BST.this.add(e);
+		}
+		
+		@SuppressWarnings("unchecked")
+		public boolean remove(Object o) {
+			if (o == null || BST.this.isEmpty() || o.getClass() != (root.data).getClass())
+				return false;
+			return inRange((E) o) && removeNode((E) o);
+		}
+		
+		public void clear() {
+			E e;
+			while ((e = pollFirst()) != null) {}
+		}
+
+		public Iterator<E> iterator() {
+			return new RangeIter(!descending, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
+		}
+
+		public Iterator<E> descendingIterator() {
+			return new RangeIter(descending, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
+		}
+
+		public Comparator<? super E> comparator() {
+			return descending ? Collections.reverseOrder() : null;
+		}
+
+		public E first() throws NoSuchElementException {
+			E e = descending ? absHighest() : absLowest();
+			if (e == null)
+				throw new NoSuchElementException();
+			return e;
+		}
+
+		public E last() throws NoSuchElementException {
+			E e = descending ? absLowest() : absHighest();
+			if (e == null)
+				throw new NoSuchElementException();
+			return e;
+		}
+
+		public E lower(E e) {
+			if (e == null)
+				return null;
+			return descending ? absHigher(e) : absLower(e);
+		}
+
+		public E floor(E e) {
+			if (e == null)
+				return null;
+			return descending ? absCeiling(e) : absFloor(e);
+		}
+
+		public E ceiling(E e) {
+			if (e == null)
+				return null;
+			return descending ? absFloor(e) : absCeiling(e);
+		}
+
+		public E higher(E e) {
+			if (e == null)
+				return null;
+			return descending ? absLower(e) : absHigher(e);
+		}
+
+		public E pollFirst() {
+			E e = descending ? absHighest() : absLowest();
+			if (e != null)
+				removeNode(e);
+			return e;
+		}
+
+		public E pollLast() {
+			E e = descending ? absLowest() : absHighest();
+			if (e != null)
+				removeNode(e);
+			return e;
+		}
+
+		public NavigableSet<E> descendingSet() {
+			return new RangeView(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+		}
+
+		public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive)
+				throws IllegalArgumentException {
+			checkBound(fromElement, fromInclusive);
+			checkBound(toElement, toInclusive);
+			if (descending)
+				return new RangeView(false, toElement, toInclusive, false, fromElement, fromInclusive, true);
+			return new RangeView(false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+		}
+
+		public NavigableSet<E> headSet(E toElement, boolean inclusive) throws IllegalArgumentException {
+			checkBound(toElement, inclusive);
+			if (descending)
+				return new RangeView(false, toElement, inclusive, toEnd, hi, hiInclusive, true);
+			return new RangeView(fromStart, lo, loInclusive, false, toElement, inclusive, false);
+		}
+
+		public NavigableSet<E> tailSet(E fromElement, boolean inclusive) throws IllegalArgumentException {
+			checkBound(fromElement, inclusive);
+			if (descending)
+				return new RangeView(fromStart, lo, loInclusive, false, fromElement, inclusive, true);
+			return new RangeView(false, fromElement, inclusive, toEnd, hi, hiInclusive, false);
+		}
+
+		public NavigableSet<E> subSet(E fromElement, E toElement) throws IllegalArgumentException {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		public NavigableSet<E> headSet(E toElement) throws IllegalArgumentException {
+			return headSet(toElement, false);
+		}
+
+		public NavigableSet<E> tailSet(E fromElement) throws IllegalArgumentException {
+			return tailSet(fromElement, true);
+		}
+		
+	}
+
+	/*
+	 * Spliterator over the elements at in-order positions [index, fence). The top-level
+	 * spliterator binds to the tree (fence = size) on first use, and the halves split
+	 * from it share that binding, so changes made after binding are detected through
+	 * modCount. Nothing is walked until the first element is needed, at which point the
+	 * stack is seeded with one O(log n) descent to position index, guided by the subtree
+	 * counts.
+	 */
+	private class BSTSpliterator implements Spliterator<E>{
+		
+		private int index;
+		private int fence;
+		private ArrayDeque<BSTNode<E>> path;
+		private int expectedModCount;
+		
+		/*
+		 * fence is -1 for a spliterator that has not bound to the tree yet
+		 */
+		public BSTSpliterator(int index, int fence, int expectedModCount) {
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		/*
+		 * Binds to the tree as it is now, on first use
+		 */
+		private void bind() {
+			if (fence < 0) {
+				fence = size;
+				expectedModCount = modCount;
+			}
+		}
+		
+		/*
+		 * Pushes the path to the node at position index, keeping the nodes at which
+		 * the walk turned left so that the rest follow in order
+		 */
+		private void seed() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			path = new ArrayDeque<>();
+			int k = index;
+			BSTNode<E> n = root;
+			while (n != null) {
+				int leftCount = count(n.left);
+				if (k < leftCount) {
+					path.push(n);
+					n = n.left;
+				} else if (k == leftCount) {
+					path.push(n);
+					return;
+				} else {
+					k -= leftCount + 1;
+					n = n.right;
+				}
+			}
+		}
+		
+		private E nextElement() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			BSTNode<E> n = path.pop();
+			BSTNode<E> child = n.right;
+			while (child != null) {
+				path.push(child);
+				child = child.left;
+			}
+			index++;
+			return n.data;
+		}
+
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if (action == null)
+				throw new NullPointerException();
+			bind();
+			if (index >= fence)
+				return false;
+			if (path == null)
+				seed();
+			action.accept(nextElement());
+			return true;
+		}
+
+		public void forEachRemaining(Consumer<? super E> action) {
+			if (action == null)
+				throw new NullPointerException();
+			bind();
+			if (index >= fence)
+				return;
+			if (path == null)
+				seed();
+			while (index < fence)
+				action.accept(nextElement());
+		}
+
+		/*
+		 * Hands the lower half of the remaining positions to a new spliterator,
+		 * unless traversal has already started
+		 */
+		public Spliterator<E> trySplit() {
+			bind();
+			int mid = (index + fence) >>> 1;
+			if (path != null || mid <= index)
+				return null;
+			Spliterator<E> prefix = new BSTSpliterator(index, mid, expectedModCount);
+			index = mid;
+			return prefix;
+		}
+
+		public long estimateSize() {
+			bind();
+			return fence - index;
+		}
+
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL
+				| Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+
+		/*
+		 * The elements are sorted by their natural ordering
+		 */
+		public Comparator<? super E> getComparator() {
+			return null;
 		}
 		
 	}
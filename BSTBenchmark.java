@@ -0,0 +1,79 @@
+import java.util.Random;
+
+/**
+ * This class times the basic operations of BST (add, contains, remove) on sorted
+ * and shuffled keys, for both the unbalanced and the balanced mode of the tree.
+ * Results are printed as average nanoseconds per operation.
+ * Run with: java BSTBenchmark [number of keys] [rounds]
+ * @author Matthew Goodbar
+ *
+ */
+public class BSTBenchmark {
+
+	private BSTBenchmark() {}
+
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+		Integer[] sorted = new Integer[n];
+		for (int i = 0; i < n; i++)
+			sorted[i] = i;
+		Integer[] shuffled = sorted.clone();
+		Random rand = new Random(42);
+		for (int i = n - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			Integer temp = shuffled[i];
+			shuffled[i] = shuffled[j];
+			shuffled[j] = temp;
+		}
+
+		System.out.printf("%-22s %12s %15s %12s%n", "case (n = " + n + ")", "add ns/op", "contains ns/op", "remove ns/op");
+		//Every round builds and empties all four trees, only the timings of the final round
+		//are printed, once add, contains and remove have been compiled for both modes
+		for (int r = 1; r <= rounds; r++) {
+			boolean report = (r == rounds);
+			run("unbalanced, shuffled", false, shuffled, report);
+			run("balanced, shuffled", true, shuffled, report);
+			run("unbalanced, sorted", false, sorted, report);
+			run("balanced, sorted", true, sorted, report);
+		}
+	}
+
+	/*
+	 * Adds every key, looks every key up, then removes every key, timing each phase.
+	 */
+	private static void run(String name, boolean balanced, Integer[] keys, boolean report) {
+		BST<Integer> tree = new BST<>(balanced);
+		long addTime, containsTime, removeTime;
+		try {
+			long start = System.nanoTime();
+			for (Integer k : keys)
+				tree.add(k);
+			addTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			int found = 0;
+			for (Integer k : keys) {
+				if (tree.contains(k))
+					found++;
+			}
+			containsTime = System.nanoTime() - start;
+			if (found != keys.length)
+				throw new IllegalStateException("Lookup missed " + (keys.length - found) + " keys");
+
+			start = System.nanoTime();
+			for (Integer k : keys)
+				tree.remove(k);
+			removeTime = System.nanoTime() - start;
+		} catch (StackOverflowError e) {
+			if (report)
+				System.out.printf("%-22s %12s%n", name, "StackOverflowError");
+			return;
+		}
+		if (report)
+			System.out.printf("%-22s %12.1f %15.1f %12.1f%n", name, (double) addTime / keys.length,
+				(double) containsTime / keys.length, (double) removeTime / keys.length);
+	}
+
+}
@@ -0,0 +1,91 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This interface converts the elements of a tree to and from bytes, so that trees
+ * can be written to disk and searched in place by MappedBST. Codecs for Integer,
+ * Long and String elements are provided.
+ * @author Matthew Goodbar
+ *
+ * @param <E> The declared type of the tree's elements.
+ */
+public interface BSTCodec<E extends Comparable<E>> {
+
+	/**
+	 * Encodes an element.
+	 * @param e The element to encode.
+	 * @return Returns the bytes of the element.
+	 */
+	byte[] encode(E e);
+
+	/**
+	 * Decodes an element stored in a buffer.
+	 * @param buf The buffer holding the element.
+	 * @param offset The absolute position of the element's first byte.
+	 * @param length The number of bytes of the element.
+	 * @return Returns the decoded element.
+	 */
+	E decode(ByteBuffer buf, int offset, int length);
+
+	/**
+	 * Compares an element stored in a buffer to the given key, by the natural
+	 * ordering of the elements. Codecs can override this to compare without
+	 * decoding the stored element.
+	 * @param buf The buffer holding the element.
+	 * @param offset The absolute position of the element's first byte.
+	 * @param length The number of bytes of the element.
+	 * @param key The key to compare to.
+	 * @return Returns a negative number, zero or a positive number if the stored
+	 * element is less than, equal to or greater than key.
+	 */
+	default int compare(ByteBuffer buf, int offset, int length, E key) {
+		return decode(buf, offset, length).compareTo(key);
+	}
+
+	/**
+	 * Stores Integer elements as 4 big-endian bytes.
+	 */
+	BSTCodec<Integer> INTEGER = new BSTCodec<Integer>() {
+		public byte[] encode(Integer e) {
+			return ByteBuffer.allocate(Integer.BYTES).putInt(e).array();
+		}
+		public Integer decode(ByteBuffer buf, int offset, int length) {
+			return buf.getInt(offset);
+		}
+		public int compare(ByteBuffer buf, int offset, int length, Integer key) {
+			return Integer.compare(buf.getInt(offset), key);
+		}
+	};
+
+	/**
+	 * Stores Long elements as 8 big-endian bytes.
+	 */
+	BSTCodec<Long> LONG = new BSTCodec<Long>() {
+		public byte[] encode(Long e) {
+			return ByteBuffer.allocate(Long.BYTES).putLong(e).array();
+		}
+		public Long decode(ByteBuffer buf, int offset, int length) {
+			return buf.getLong(offset);
+		}
+		public int compare(ByteBuffer buf, int offset, int length, Long key) {
+			return Long.compare(buf.getLong(offset), key);
+		}
+	};
+
+	/**
+	 * Stores String elements as UTF-8.
+	 */
+	BSTCodec<String> STRING = new BSTCodec<String>() {
+		public byte[] encode(String e) {
+			return e.getBytes(StandardCharsets.UTF_8);
+		}
+		public String decode(ByteBuffer buf, int offset, int length) {
+			byte[] bytes = new byte[length];
+			ByteBuffer view = buf.duplicate();
+			view.position(offset);
+			view.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+}
@@ -0,0 +1,548 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class creates a list of objects stored in fixed-size chunks. The chunks are
+ * held in a spine array, so the element at index i is found in O(1) at
+ * chunks[i / CHUNK_SIZE][i % CHUNK_SIZE] instead of by walking from the head, and
+ * appending is O(1) amortized since a full chunk is never copied, only the spine
+ * grows. Like LinkedList, the list cannot contain null elements.
+ * @author Matthew
+ *
+ * @param <E> E is the declared type of the elements to be stored in the list.
+ */
+public class ChunkedList<E> implements Collection<E>, Iterable<E> {
+
+	private static final int CHUNK_SHIFT = 6;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; //64 elements per chunk
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int INITIAL_CHUNKS = 4;
+
+	private Object[][] chunks = new Object[INITIAL_CHUNKS][];
+	private int size = 0;
+	private int modCount = 0; //Number of structural changes, checked by iterators to fail fast
+	//Bumped by snapshot(). A chunk or spine from an older epoch may be read by a snapshot,
+	//so it is copied before anything below the end of the list is written to it
+	private int epoch = 0;
+	private int spineEpoch = 0;
+	private int[] chunkEpochs = new int[INITIAL_CHUNKS];
+
+	/**
+	 * No parameter constructor for a new ChunkedList object.
+	 */
+	public ChunkedList() {
+
+	}
+
+	/**
+	 * Creates a list holding the elements of c, in the order c returns them.
+	 * Null elements are skipped.
+	 * @param c The collection whose elements are added to the list.
+	 */
+	public ChunkedList(Collection<? extends E> c) {
+		addAll(c);
+	}
+
+	/**
+	 * Adds a new element of data type E to the end of the list.
+	 * @param e Data to be stored in the list.
+	 * @return Returns true if element was added correctly, false otherwise.
+	 */
+	public boolean add(E e) {
+		if (e == null) { //List can't contain null elements
+			return false;
+		}
+		int chunk = size >>> CHUNK_SHIFT;
+		if (chunk == chunks.length) { //Spine is full, double it
+			chunks = Arrays.copyOf(chunks, chunks.length * 2);
+			chunkEpochs = Arrays.copyOf(chunkEpochs, chunks.length);
+			spineEpoch = epoch;
+		}
+		if (chunks[chunk] == null) { //Last chunk is full, start a new one, past the end of any snapshot
+			chunks[chunk] = new Object[CHUNK_SIZE];
+			chunkEpochs[chunk] = epoch;
+		}
+		chunks[chunk][size & CHUNK_MASK] = e;
+		size++;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Adds every element of c to the end of the list, in the order c returns them.
+	 * Null elements are skipped.
+	 * @param c The collection of elements to add.
+	 * @return Returns true if the list changed as a result of the call.
+	 */
+	public boolean addAll(Collection<? extends E> c) {
+		if (c == null) {
+			return false;
+		}
+		boolean changed = false;
+		for (E e : c) {
+			if (add(e)) {
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Clears list of all elements.
+	 */
+	public void clear() {
+		chunks = new Object[INITIAL_CHUNKS][];
+		chunkEpochs = new int[INITIAL_CHUNKS];
+		spineEpoch = epoch;
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Checks if the list is empty.
+	 * @return Returns true if there are no elements in the list, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	/**
+	 * Checks to see if Object o is in the list.
+	 * @param o The object in question.
+	 * @return Returns true if the object is in the list, false otherwise;
+	 */
+	public boolean contains(Object o) {
+		return (indexOf(o) >= 0);
+	}
+
+	/**
+	 * Checks to see if all elements within the Collection c are in the list.
+	 * @param c The collection in question.
+	 * @return Returns true if all elements in c are elements in the list.
+	 */
+	public boolean containsAll(Collection<?> c) {
+		if (c == null) { //List can't contain null elements
+			return false;
+		}
+		for (Object o : c) {
+			if (!this.contains(o)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if o is a ChunkedList holding equal elements in the same order.
+	 * @param o The object in question.
+	 * @return Returns true if the lists are equal, false otherwise.
+	 */
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof ChunkedList)) {
+			return false;
+		}
+		ChunkedList<?> other = (ChunkedList<?>) o;
+		if (other.size != size) { //The two lists can't be equal if they don't have the same cardinality
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			if (!element(i).equals(other.element(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Returns a hash code computed from the elements in order, like List.hashCode().
+	 */
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++) {
+			hash = 31 * hash + element(i).hashCode();
+		}
+		return hash;
+	}
+
+	/**
+	 * Removes the first occurrence of Object o from the list if it is an element of the list.
+	 * @param o The object to be removed.
+	 * @return Returns true if the object was removed, false if such an element is not
+	 * in the list.
+	 */
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Removes every element of the list that is contained in c, in a single pass that
+	 * checks each element against a hashed set built from c.
+	 * @param c The collection of elements to remove.
+	 * @return Returns true if the list changed as a result of the call.
+	 */
+	public boolean removeAll(Collection<?> c) {
+		if (c == null) {
+			return false;
+		}
+		return filter(lookup(c), false);
+	}
+
+	/**
+	 * Removes every element of the list that is not contained in c, in a single pass
+	 * that checks each element against a hashed set built from c.
+	 * @param c The collection of elements to keep.
+	 * @return Returns true if the list changed as a result of the call.
+	 */
+	public boolean retainAll(Collection<?> c) {
+		if (c == null) {
+			return false;
+		}
+		return filter(lookup(c), true);
+	}
+
+	/**
+	 * @return Returns the number of elements in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns an array of all elements in the list as they appear in the list.
+	 * @return Returns the list in array form.
+	 */
+	public Object[] toArray() {
+		Object[] resultArray = new Object[size];
+		copyTo(resultArray);
+		return resultArray;
+	}
+
+	/**
+	 * Returns an array of specified type of all elements in the list as they
+	 * appear in the list.
+	 * @param a The array to be filled with elements in the list, a new array of the same
+	 * type is allocated if it is too small.
+	 * @return Returns the list in array form.
+	 * @throws IllegalArgumentException When method is called with null parameter.
+	 */
+	public <T> T[] toArray(T[] a) throws IllegalArgumentException{
+		if (a == null) { //Throw exception if argument is null
+			throw new IllegalArgumentException();
+		}
+		T[] resultArray = (a.length >= size) ? a : Arrays.copyOf(a, size);
+		copyTo(resultArray);
+		if (resultArray.length > size) { //Mark the end of the elements, as Collection.toArray specifies
+			resultArray[size] = null;
+		}
+		return resultArray;
+	}
+
+	/**
+	 * Returns an unmodifiable list of the elements, in the order they appear in the
+	 * list, as they are now. Taking a snapshot is O(1): it reads the spine and chunks in
+	 * place. Appending only writes past the end of the snapshot. set, remove, sort and
+	 * removeAll/retainAll copy each chunk they write to, and the spine, the first time
+	 * after a snapshot, so set costs at most one 64-element chunk and the spine. The
+	 * snapshot is unaffected by later changes and can be iterated while the list is
+	 * being modified.
+	 * @return Returns the snapshot of the list.
+	 */
+	public List<E> snapshot() {
+		epoch++;
+		return new Snapshot(chunks, size);
+	}
+
+	/**
+	 * Creates a new iterator to iterate through the list. The iterator supports remove().
+	 */
+	public Iterator<E> iterator() {
+		return new ChunkedIterator();
+	}
+
+	/**
+	 * Finds the index of Object o in the list, if it is in the list.
+	 * @param o The object in question.
+	 * @return Returns the index of the Object in the list,
+	 * or -1 if the Object is not in the list.
+	 */
+	public int indexOf(Object o) {
+		if (o == null) { //null cannot be an element of the list
+			return -1;
+		}
+		int index = 0;
+		for (int c = 0; index < size; c++) { //Scan chunk by chunk instead of recomputing the position of each index
+			Object[] chunk = chunks[c];
+			int end = Math.min(CHUNK_SIZE, size - index);
+			for (int i = 0; i < end; i++) {
+				if (o.equals(chunk[i])) {
+					return index + i;
+				}
+			}
+			index += end;
+		}
+		return -1;
+	}
+
+	/**
+	 * Retrieves the element at the specified index in O(1).
+	 * @param index The index of the element to retrieve
+	 * @return returns the element at the given index.
+	 * @throws IndexOutOfBoundsException When the given index is not in the list.
+	 */
+	public E get(int index) throws IndexOutOfBoundsException{
+		if (index < 0 || index >= size) { //Index cannot be less than 0, or greater than the size of the list -1
+			throw new IndexOutOfBoundsException();
+		}
+		return element(index);
+	}
+
+	/**
+	 * Replaces the element at the specified index.
+	 * @param index The index of the element to replace.
+	 * @param e The new element.
+	 * @return Returns the element previously at the given index.
+	 * @throws IndexOutOfBoundsException When the given index is not in the list.
+	 * @throws IllegalArgumentException When e is null.
+	 */
+	public E set(int index, E e) throws IndexOutOfBoundsException{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (e == null) { //List can't contain null elements
+			throw new IllegalArgumentException();
+		}
+		E old = element(index);
+		writableChunk(index >>> CHUNK_SHIFT)[index & CHUNK_MASK] = e;
+		return old;
+	}
+
+	public String toString() {
+		StringBuilder result = new StringBuilder(2 + size * 8);
+		result.append('[');
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(element(i));
+		}
+		return result.append(']').toString();
+	}
+
+	/**
+	 * Sorts the list via the natural order of the elements.
+	 */
+	public void sort() {
+		Object[] array = this.toArray();
+		Arrays.sort(array);
+		for (int index = 0, c = 0; index < size; c++) { //Write the sorted elements back in place, a chunk at a time
+			int length = Math.min(CHUNK_SIZE, size - index);
+			System.arraycopy(array, index, writableChunk(c), 0, length);
+			index += length;
+		}
+		modCount++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E element(int index) {
+		return (E) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+
+	/*
+	 * Copies the elements into the front of dest, one chunk at a time.
+	 */
+	private void copyTo(Object[] dest) {
+		for (int index = 0, c = 0; index < size; c++) {
+			int length = Math.min(CHUNK_SIZE, size - index);
+			System.arraycopy(chunks[c], 0, dest, index, length);
+			index += length;
+		}
+	}
+
+	/*
+	 * Removes the element at index, shifting the elements after it down by one.
+	 */
+	private void removeAt(int index) {
+		int c = index >>> CHUNK_SHIFT;
+		int last = (size - 1) >>> CHUNK_SHIFT;
+		int from = index & CHUNK_MASK;
+		while (c < last) { //Shift within the chunk, then pull the first element of the next chunk in
+			Object[] chunk = writableChunk(c);
+			System.arraycopy(chunk, from + 1, chunk, from, CHUNK_MASK - from);
+			chunk[CHUNK_MASK] = chunks[c + 1][0];
+			from = 0;
+			c++;
+		}
+		int end = (size - 1) & CHUNK_MASK;
+		if (end == 0) { //Last chunk is now empty, drop it without copying it
+			writableSpine();
+			chunks[c] = null;
+		} else {
+			Object[] chunk = writableChunk(c);
+			System.arraycopy(chunk, from + 1, chunk, from, end - from);
+			chunk[end] = null;
+		}
+		size--;
+		modCount++;
+	}
+
+	/*
+	 * Returns c itself if it is already a HashSet (or LinkedHashSet), otherwise a
+	 * HashSet copy of it, so that every lookup is O(1) expected.
+	 */
+	private Collection<?> lookup(Collection<?> c) {
+		return (c instanceof HashSet) ? c : new HashSet<>(c);
+	}
+
+	/*
+	 * Keeps only the elements whose membership in c equals keep, compacting the
+	 * survivors towards the front in a single pass.
+	 */
+	private boolean filter(Collection<?> c, boolean keep) {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			Object e = element(i);
+			if (c.contains(e) == keep) {
+				if (kept != i) { //Moving an element down
+					writableChunk(kept >>> CHUNK_SHIFT)[kept & CHUNK_MASK] = e;
+				}
+				kept++;
+			}
+		}
+		if (kept == size) {
+			return false;
+		}
+		for (int i = kept; i < size && (i & CHUNK_MASK) != 0; i++) { //Drop the references past the new end in its chunk
+			writableChunk(i >>> CHUNK_SHIFT)[i & CHUNK_MASK] = null;
+		}
+		for (int chunk = (kept + CHUNK_MASK) >>> CHUNK_SHIFT; chunk < chunks.length && chunks[chunk] != null; chunk++) { //Release the chunks that are now empty
+			writableSpine();
+			chunks[chunk] = null;
+		}
+		size = kept;
+		modCount++;
+		return true;
+	}
+
+	/*
+	 * Returns chunk c, ready to be written to below the end of the list. A chunk from
+	 * before the last snapshot may be read by it, so it is replaced with a copy first,
+	 * which also needs a spine of this epoch to hold the copy.
+	 */
+	private Object[] writableChunk(int c) {
+		if (chunkEpochs[c] != epoch) {
+			writableSpine();
+			chunks[c] = chunks[c].clone();
+			chunkEpochs[c] = epoch;
+		}
+		return chunks[c];
+	}
+
+	/*
+	 * Copies the spine if a snapshot may read it, before one of its slots below the
+	 * end of the list is changed. Only the references are copied, not the chunks.
+	 */
+	private void writableSpine() {
+		if (spineEpoch != epoch) {
+			chunks = chunks.clone();
+			spineEpoch = epoch;
+		}
+	}
+
+	/**
+	 * This class creates the unmodifiable list returned by snapshot(), over the
+	 * spine and chunks of the list at the time. The list copies a chunk or the spine
+	 * before writing to it below the end of the list, so these stay as they were.
+	 * @author Matthew
+	 *
+	 */
+	private class Snapshot extends AbstractList<E>{
+
+		private final Object[][] chunks;
+		private final int size;
+
+		public Snapshot(Object[][] chunks, int size) {
+			this.chunks = chunks;
+			this.size = size;
+		}
+
+		@SuppressWarnings("unchecked")
+		public E get(int index) throws IndexOutOfBoundsException{
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException();
+			}
+			return (E) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+		}
+
+		public int size() {
+			return size;
+		}
+
+	}
+
+	/**
+	 * This class creates an iterator that iterates through the list by index.
+	 * @author Matthew
+	 *
+	 */
+	private class ChunkedIterator implements Iterator<E>{
+
+		private int cursor = 0; //Index of the next element to return
+		private int lastReturned = -1;
+		private int expectedModCount = modCount; //Changes to the list after this point make next() fail
+
+		/**
+		 * Checks to see if next element in the list exists.
+		 */
+		public boolean hasNext() {
+			return (cursor < size);
+		}
+
+		/**
+		 * Returns the next element in the list.
+		 * @throws ConcurrentModificationException When the list was changed after the
+		 * iterator was created, other than through this iterator.
+		 */
+		public E next() throws NoSuchElementException{
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (cursor >= size) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor++;
+			return element(lastReturned);
+		}
+
+		/**
+		 * Removes the last element returned by next() from the list.
+		 */
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(lastReturned);
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+	}
+
+}
@@ -0,0 +1,84 @@
+import java.util.Collection;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class times LinkedList against ChunkedList for appending, iterating, indexOf
+ * and the get(i) loops that are quadratic on a linked list.
+ * Results are printed as average nanoseconds per operation.
+ * Run with: java ChunkedListBenchmark [number of elements] [rounds]
+ * @author Matthew
+ *
+ */
+public class ChunkedListBenchmark {
+
+	private ChunkedListBenchmark() {}
+
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+		Integer[] values = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			values[i] = i;
+		}
+
+		System.out.printf("%-12s %12s %12s %12s %15s%n", "n = " + n, "add ns/op", "iterate ns/op", "get ns/op", "indexOf ns/op");
+		//Both lists are rebuilt from scratch every round, the first rounds give the JIT a
+		//chance to compile get and indexOf and only the final round is printed
+		for (int r = 1; r <= rounds; r++) {
+			boolean report = (r == rounds);
+			LinkedList<Integer> linked = new LinkedList<>();
+			run("LinkedList", linked, linked::get, linked::indexOf, values, report);
+			ChunkedList<Integer> chunked = new ChunkedList<>();
+			run("ChunkedList", chunked, chunked::get, chunked::indexOf, values, report);
+		}
+	}
+
+	/*
+	 * Fills the empty list with values and times each phase. Neither list implements
+	 * java.util.List, so get and indexOf are passed in as method references.
+	 */
+	private static void run(String name, Collection<Integer> list, IntFunction<Integer> get,
+			ToIntFunction<Object> indexOf, Integer[] values, boolean report) {
+		int n = values.length;
+		long start = System.nanoTime();
+		for (Integer v : values) {
+			list.add(v);
+		}
+		long addTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		long sum = 0;
+		for (Integer v : list) {
+			sum += v;
+		}
+		long iterateTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			sum += get.apply(i);
+		}
+		long getTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		int lookups = Math.min(n, 1000);
+		for (int i = 0; i < lookups; i++) {
+			sum += indexOf.applyAsInt(values[(int) ((long) i * n / lookups)]);
+		}
+		long indexOfTime = System.nanoTime() - start;
+		print(name, report, n, lookups, addTime, iterateTime, getTime, indexOfTime, sum);
+	}
+
+	/*
+	 * The checksum is printed so the JIT cannot drop the timed loops.
+	 */
+	private static void print(String name, boolean report, int n, int lookups, long addTime, long iterateTime,
+			long getTime, long indexOfTime, long sum) {
+		if (report) {
+			System.out.printf("%-12s %12.1f %12.1f %12.1f %15.1f   (checksum %d)%n", name, (double) addTime / n,
+				(double) iterateTime / n, (double) getTime / n, (double) indexOfTime / lookups, sum);
+		}
+	}
+
+}
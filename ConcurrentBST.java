@@ -0,0 +1,430 @@
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class creates a thread-safe, balanced binary search tree. The tree cannot
+ * contain null or duplicate elements. Nodes are never changed once they are
+ * reachable: a write copies the nodes on the path it changes (rebalancing as an
+ * AVL tree) and publishes the new root with a compare-and-set, retrying if another
+ * writer got there first. Reads never lock or retry, they walk whichever version of
+ * the tree was current when they started. Iterators are weakly consistent: they walk
+ * the version of the tree that existed when they were created and never throw
+ * ConcurrentModificationException.
+ * @author Matthew Goodbar
+ *
+ * @param <E> Must implement comparable interface
+ */
+public class ConcurrentBST<E extends Comparable<E>> extends AbstractSet<E> implements Iterable<E>{
+
+	private final AtomicReference<Node<E>> root = new AtomicReference<>();
+
+	public ConcurrentBST() {}
+
+	/**
+	 * Adds an element to the tree. Cannot add null or duplicate elements.
+	 * @param e Element to be added
+	 * @return Returns true if the element was added successfully, false if otherwise.
+	 */
+	public boolean add(E e) {
+		//Don't allow null elements
+		if (e == null)
+			return false;
+		while (true) {
+			Node<E> current = root.get();
+			Node<E> updated = insert(current, e);
+			//Already in the tree
+			if (updated == current)
+				return false;
+			if (root.compareAndSet(current, updated))
+				return true;
+		}
+	}
+
+	/**
+	 * Removes the given object from the tree if it exists.
+	 * @param o The object to be removed from the tree.
+	 * @return Returns true if the element was successfully removed
+	 * from the tree, false if otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o) {
+		while (true) {
+			Node<E> current = root.get();
+			if (!sameType(current, o))
+				return false;
+			Node<E> updated = delete(current, (E) o);
+			//Not in the tree
+			if (updated == current)
+				return false;
+			if (root.compareAndSet(current, updated))
+				return true;
+		}
+	}
+
+	/**
+	 * Clears the tree of all elements.
+	 */
+	public void clear() {
+		root.set(null);
+	}
+
+	/**
+	 * Checks to see if the given argument is contained within the tree
+	 * @param o The element to be searched for in the tree.
+	 * @return Returns true if the given argument is in the tree, false if otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o) {
+		Node<E> n = root.get();
+		if (!sameType(n, o))
+			return false;
+		return find(n, (E) o) != null;
+	}
+
+	/**
+	 * Returns a reference to the element in the tree equal to the
+	 * given argument if it exists in the tree
+	 * @param value The value to be searched for in the tree.
+	 * @return Returns a reference to the value in the tree.
+	 */
+	public E get(E value) {
+		Node<E> n = root.get();
+		if (!sameType(n, value))
+			return null;
+		n = find(n, value);
+		return (n == null) ? null : n.data;
+	}
+
+	/**
+	 * @return Returns the number of elements in the tree.
+	 */
+	public int size() {
+		return count(root.get());
+	}
+
+	/**
+	 * Checks to see if the tree is empty.
+	 * @return Returns true if the tree has no elements, false if otherwise.
+	 */
+	public boolean isEmpty() {
+		return root.get() == null;
+	}
+
+	/**
+	 * Creates and returns an iterator that iterates through the tree via the
+	 * natural ordering of the elements, as the tree was when this method was called.
+	 * @return Returns an instance of the iterator.
+	 */
+	public Iterator<E> iterator() {
+		return new Iter(root.get());
+	}
+
+	/**
+	 * @return Returns the first (lowest) element currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
+	 */
+	public E first() throws NoSuchElementException {
+		Node<E> n = root.get();
+		if (n == null)
+			throw new NoSuchElementException();
+		return lowest(n);
+	}
+
+	/**
+	 * @return Returns the last (highest) element currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
+	 */
+	public E last() throws NoSuchElementException {
+		Node<E> n = root.get();
+		if (n == null)
+			throw new NoSuchElementException();
+		return highest(n);
+	}
+
+	/**
+	 * Removes and returns the first (lowest) element of the tree.
+	 * @return Returns the removed element, or null if the tree is empty.
+	 */
+	public E pollFirst() {
+		while (true) {
+			Node<E> current = root.get();
+			if (current == null)
+				return null;
+			E e = lowest(current);
+			if (root.compareAndSet(current, deleteLowest(current)))
+				return e;
+		}
+	}
+
+	/**
+	 * Removes and returns the last (highest) element of the tree.
+	 * @return Returns the removed element, or null if the tree is empty.
+	 */
+	public E pollLast() {
+		while (true) {
+			Node<E> current = root.get();
+			if (current == null)
+				return null;
+			E e = highest(current);
+			if (root.compareAndSet(current, deleteHighest(current)))
+				return e;
+		}
+	}
+
+	/**
+	 * @param e The given element to compare to
+	 * @return Returns the least element in this set greater than or equal to the given element,
+	 * or null if there is no such element.
+	 */
+	public E ceiling(E e) {
+		return search(e, true, true);
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the greatest element in this set less than or equal to the given element,
+	 * or null if there is no such element
+	 */
+	public E floor(E e) {
+		return search(e, false, true);
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the least element in this set strictly greater than the given element,
+	 * or null if there is no such element.
+	 */
+	public E higher(E e) {
+		return search(e, true, false);
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the greatest element in this set strictly less than the given element,
+	 * or null if there is no such element
+	 */
+	public E lower(E e) {
+		return search(e, false, false);
+	}
+
+	/**
+	 * Copies the current contents of this tree into a new, unsynchronized BST.
+	 * @param balanced If true, the copy keeps itself height balanced (AVL).
+	 * @return Returns the copy.
+	 */
+	public BST<E> toBST(boolean balanced) {
+		Node<E> n = root.get();
+		return BST.fromSorted(new Iter(n), count(n), balanced);
+	}
+
+	/*
+	 * Single descent shared by ceiling, floor, higher and lower. above selects
+	 * ceiling/higher, inclusive selects ceiling/floor.
+	 */
+	private E search(E e, boolean above, boolean inclusive) {
+		if (e == null)
+			return null;
+		E result = null;
+		Node<E> n = root.get();
+		while (n != null) {
+			int cmp = e.compareTo(n.data);
+			if (cmp == 0 && inclusive)
+				return n.data;
+			//Remember the last node at which the walk turned towards e
+			if (above ? cmp < 0 : cmp <= 0) {
+				if (above)
+					result = n.data;
+				n = n.left;
+			} else {
+				if (!above)
+					result = n.data;
+				n = n.right;
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Only non-null elements of the same class as the ones in the tree can be in it
+	 */
+	private boolean sameType(Node<E> n, Object o) {
+		return n != null && o != null && o.getClass() == (n.data).getClass();
+	}
+
+	private Node<E> find(Node<E> n, E e) {
+		while (n != null) {
+			int cmp = (n.data).compareTo(e);
+			if (cmp == 0)
+				return n;
+			n = (cmp > 0) ? n.left : n.right;
+		}
+		return null;
+	}
+
+	private E lowest(Node<E> n) {
+		while (n.left != null) {
+			n = n.left;
+		}
+		return n.data;
+	}
+
+	private E highest(Node<E> n) {
+		while (n.right != null) {
+			n = n.right;
+		}
+		return n.data;
+	}
+
+	/*
+	 * Returns a new version of the subtree n with e added, or n itself if e is
+	 * already in it. Only the nodes on the path to e are copied.
+	 */
+	private Node<E> insert(Node<E> n, E e) {
+		if (n == null)
+			return new Node<E>(e, null, null);
+		int cmp = (n.data).compareTo(e);
+		if (cmp == 0)
+			return n;
+		if (cmp > 0) {
+			Node<E> left = insert(n.left, e);
+			return (left == n.left) ? n : balance(n.data, left, n.right);
+		}
+		Node<E> right = insert(n.right, e);
+		return (right == n.right) ? n : balance(n.data, n.left, right);
+	}
+
+	/*
+	 * Returns a new version of the subtree n with e removed, or n itself if e is
+	 * not in it. A node with two children is replaced by its in-order successor.
+	 */
+	private Node<E> delete(Node<E> n, E e) {
+		if (n == null)
+			return null;
+		int cmp = (n.data).compareTo(e);
+		if (cmp > 0) {
+			Node<E> left = delete(n.left, e);
+			return (left == n.left) ? n : balance(n.data, left, n.right);
+		}
+		if (cmp < 0) {
+			Node<E> right = delete(n.right, e);
+			return (right == n.right) ? n : balance(n.data, n.left, right);
+		}
+		if (n.left == null)
+			return n.right;
+		if (n.right == null)
+			return n.left;
+		return balance(lowest(n.right), n.left, deleteLowest(n.right));
+	}
+
+	private Node<E> deleteLowest(Node<E> n) {
+		if (n.left == null)
+			return n.right;
+		return balance(n.data, deleteLowest(n.left), n.right);
+	}
+
+	private Node<E> deleteHighest(Node<E> n) {
+		if (n.right == null)
+			return n.left;
+		return balance(n.data, n.left, deleteHighest(n.right));
+	}
+
+	/*
+	 * Creates a node holding data over the given subtrees, rotating first if
+	 * their heights differ by more than one.
+	 */
+	private Node<E> balance(E data, Node<E> left, Node<E> right) {
+		int leftHeight = height(left);
+		int rightHeight = height(right);
+		if (leftHeight > rightHeight + 1) {
+			//Left heavy, left-right case promotes the left child's right child
+			if (height(left.left) >= height(left.right))
+				return new Node<E>(left.data, left.left, new Node<E>(data, left.right, right));
+			return new Node<E>(left.right.data, new Node<E>(left.data, left.left, left.right.left),
+				new Node<E>(data, left.right.right, right));
+		}
+		if (rightHeight > leftHeight + 1) {
+			//Right heavy, right-left case promotes the right child's left child
+			if (height(right.right) >= height(right.left))
+				return new Node<E>(right.data, new Node<E>(data, left, right.left), right.right);
+			return new Node<E>(right.left.data, new Node<E>(data, left, right.left.left),
+				new Node<E>(right.data, right.left.right, right.right));
+		}
+		return new Node<E>(data, left, right);
+	}
+
+	private static int height(Node<?> n) {
+		return (n == null) ? 0 : n.height;
+	}
+
+	private static int count(Node<?> n) {
+		return (n == null) ? 0 : n.count;
+	}
+
+	/*
+	 * Immutable node, so that readers can walk any version of the tree without locking.
+	 */
+	private static class Node<E>{
+
+		private final E data;
+		private final Node<E> left;
+		private final Node<E> right;
+		private final int height;
+		//Number of nodes in the subtree rooted at this node
+		private final int count;
+
+		public Node(E data, Node<E> left, Node<E> right) {
+			this.data = data;
+			this.left = left;
+			this.right = right;
+			this.height = 1 + Math.max(height(left), height(right));
+			this.count = 1 + count(left) + count(right);
+		}
+
+	}
+
+	/*
+	 * In-order iterator over one version of the tree. Holds only the path from the
+	 * root to the current node. remove() removes the last element from the live tree.
+	 */
+	private class Iter implements Iterator<E>{
+
+		private ArrayDeque<Node<E>> path = new ArrayDeque<>();
+		private E last;
+
+		public Iter(Node<E> n) {
+			pushLeft(n);
+		}
+
+		private void pushLeft(Node<E> n) {
+			while (n != null) {
+				path.push(n);
+				n = n.left;
+			}
+		}
+
+		public boolean hasNext() {
+			return (!path.isEmpty());
+		}
+
+		public E next() {
+			if (path.isEmpty())
+				throw new NoSuchElementException();
+			Node<E> n = path.pop();
+			pushLeft(n.right);
+			last = n.data;
+			return last;
+		}
+
+		public void remove() {
+			if (last == null)
+				throw new IllegalStateException();
+			ConcurrentBST.this.remove(last);
+			last = null;
+		}
+
+	}
+
+}
@@ -0,0 +1,108 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class measures the throughput of ConcurrentBST against a BST guarded by one
+ * global lock, for a growing number of threads doing a mix of lookups and writes.
+ * Results are printed as millions of operations per second.
+ * Run with: java ConcurrentBSTBenchmark [number of keys] [milliseconds per run] [percent writes]
+ * @author Matthew Goodbar
+ *
+ */
+public class ConcurrentBSTBenchmark {
+
+	private ConcurrentBSTBenchmark() {}
+
+	/*
+	 * The lookup/write mix a worker draws from. ConcurrentBST is called directly,
+	 * the plain BST takes its monitor around every call.
+	 */
+	private interface Target {
+		boolean contains(Integer k);
+		void add(Integer k);
+		void remove(Integer k);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		long millis = (args.length > 1) ? Long.parseLong(args[1]) : 1000;
+		int writePercent = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		ConcurrentBST<Integer> concurrent = new ConcurrentBST<>();
+		BST<Integer> locked = new BST<>(true);
+		for (int i = 0; i < n; i += 2) {
+			concurrent.add(i);
+			locked.add(i);
+		}
+		Target concurrentTarget = new Target() {
+			public boolean contains(Integer k) { return concurrent.contains(k); }
+			public void add(Integer k) { concurrent.add(k); }
+			public void remove(Integer k) { concurrent.remove(k); }
+		};
+		Target lockedTarget = new Target() {
+			public boolean contains(Integer k) { synchronized (locked) { return locked.contains(k); } }
+			public void add(Integer k) { synchronized (locked) { locked.add(k); } }
+			public void remove(Integer k) { synchronized (locked) { locked.remove(k); } }
+		};
+
+		System.out.printf("n = %d, %d%% writes, %d cores%n", n, writePercent, cores);
+		System.out.printf("%8s %18s %18s%n", "threads", "ConcurrentBST Mops", "locked BST Mops");
+		//One unreported single-thread run per tree, so the 1 thread row is not timing the interpreter
+		run(concurrentTarget, 1, n, millis, writePercent);
+		run(lockedTarget, 1, n, millis, writePercent);
+		for (int threads = 1; threads <= Math.max(4, 2 * cores); threads *= 2) {
+			double c = run(concurrentTarget, threads, n, millis, writePercent);
+			double l = run(lockedTarget, threads, n, millis, writePercent);
+			System.out.printf("%8d %18.2f %18.2f%n", threads, c, l);
+		}
+	}
+
+	/*
+	 * Runs the given number of threads against target for the given time and
+	 * returns the total throughput in millions of operations per second.
+	 */
+	private static double run(Target target, int threads, int n, long millis, int writePercent)
+			throws InterruptedException {
+		LongAdder ops = new LongAdder();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		long[] deadline = new long[1];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				ThreadLocalRandom rand = ThreadLocalRandom.current();
+				long done = 0;
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				while (System.nanoTime() < deadline[0]) {
+					//Check the clock every 256 operations
+					for (int i = 0; i < 256; i++) {
+						Integer k = rand.nextInt(n);
+						int roll = rand.nextInt(100);
+						if (roll < writePercent / 2)
+							target.add(k);
+						else if (roll < writePercent)
+							target.remove(k);
+						else
+							target.contains(k);
+					}
+					done += 256;
+				}
+				ops.add(done);
+			});
+			workers[t].start();
+		}
+		long begin = System.nanoTime();
+		deadline[0] = begin + millis * 1000000L;
+		start.countDown();
+		for (Thread w : workers)
+			w.join();
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		return ops.sum() / seconds / 1e6;
+	}
+
+}
@@ -0,0 +1,331 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class creates a thread-safe, lock-free linked list for handing elements from
+ * producer threads to consumer threads. Elements are appended at the tail and taken
+ * from the head in FIFO order. The list is a Michael-Scott queue: head always points
+ * to a placeholder node before the first element, producers link a new node with a
+ * compare-and-set on tail.next, and consumers take the first element with a
+ * compare-and-set on head. Threads that find tail lagging behind help move it forward
+ * instead of waiting. Like LinkedList, the list cannot contain null elements.
+ * The size is kept in a LongAdder, so it is cheap to update under contention but only
+ * exact while no other thread is changing the list. Iterators are weakly consistent:
+ * they never throw ConcurrentModificationException and skip elements that were
+ * taken after they passed the head. Elements can only be removed from the front, so
+ * remove(Object) and Iterator.remove() are not supported.
+ * @author Matthew
+ *
+ * @param <E> E is the declared type of the elements to be stored in the list.
+ */
+public class ConcurrentLinkedList<E> extends AbstractCollection<E> implements Iterable<E> {
+
+	private static final AtomicReferenceFieldUpdater<ConcurrentLinkedList<?>, Node<?>> HEAD =
+		nodeUpdater(ConcurrentLinkedList.class, "head");
+	private static final AtomicReferenceFieldUpdater<ConcurrentLinkedList<?>, Node<?>> TAIL =
+		nodeUpdater(ConcurrentLinkedList.class, "tail");
+	private static final AtomicReferenceFieldUpdater<Node<?>, Node<?>> NEXT =
+		nodeUpdater(Node.class, "next");
+
+	private volatile Node<E> head; //Placeholder node, its next is the first element
+	private volatile Node<E> tail; //Last node, or a node shortly before it while an offer is finishing
+	private final LongAdder size = new LongAdder();
+
+	/**
+	 * No parameter constructor for a new ConcurrentLinkedList object.
+	 */
+	public ConcurrentLinkedList() {
+		head = tail = new Node<E>(null);
+	}
+
+	/*
+	 * Creates an updater for a Node field of owner. Class literals are raw, so the
+	 * updater is cast once here to the wildcard types the fields are used with.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> AtomicReferenceFieldUpdater<T, Node<?>> nodeUpdater(Class<?> owner, String field) {
+		AtomicReferenceFieldUpdater<?, ?> updater = AtomicReferenceFieldUpdater.newUpdater(owner, Node.class, field);
+		return (AtomicReferenceFieldUpdater<T, Node<?>>) updater;
+	}
+
+	/**
+	 * Adds a new element to the end of the list.
+	 * @param e Data to be stored in the list.
+	 * @return Returns true if element was added correctly, false if it is null.
+	 */
+	public boolean offer(E e) {
+		if (e == null) { //List can't contain null elements
+			return false;
+		}
+		Node<E> added = new Node<E>(e);
+		while (true) {
+			Node<E> last = tail;
+			Node<E> next = last.next;
+			if (last != tail) { //tail moved while reading it, start over
+				continue;
+			}
+			if (next == null) {
+				if (NEXT.compareAndSet(last, null, added)) { //Linked in, now try to swing tail, another thread will if this fails
+					TAIL.compareAndSet(this, last, added);
+					size.increment();
+					return true;
+				}
+			} else { //Another offer linked a node but hasn't moved tail yet, help it
+				TAIL.compareAndSet(this, last, next);
+			}
+		}
+	}
+
+	/**
+	 * Adds a new element to the end of the list, same as offer.
+	 * @param e Data to be stored in the list.
+	 * @return Returns true if element was added correctly, false if it is null.
+	 */
+	public boolean add(E e) {
+		return offer(e);
+	}
+
+	/**
+	 * Removes and returns the first element of the list.
+	 * @return Returns the first element, or null if the list is empty.
+	 */
+	public E poll() {
+		while (true) {
+			Node<E> first = head;
+			Node<E> last = tail;
+			Node<E> next = first.next;
+			if (first != head) { //head moved while reading it, start over
+				continue;
+			}
+			if (next == null) { //List is empty
+				return null;
+			}
+			if (first == last) { //tail is lagging behind a node that was just linked, help it before moving head past it
+				TAIL.compareAndSet(this, last, next);
+				continue;
+			}
+			E e = next.item; //Read before the compare-and-set, the winner clears it afterwards
+			if (HEAD.compareAndSet(this, first, next)) {
+				next.item = null; //next is the new placeholder
+				first.next = first; //Link the old placeholder to itself so it doesn't keep the chain reachable
+				size.decrement();
+				return e;
+			}
+		}
+	}
+
+	/**
+	 * Returns the first element of the list without removing it.
+	 * @return Returns the first element, or null if the list is empty.
+	 */
+	public E peek() {
+		while (true) {
+			Node<E> first = head;
+			Node<E> next = first.next;
+			E e = (next == null) ? null : next.item;
+			if (first == head) { //next was still the first element when its item was read
+				return e;
+			}
+		}
+	}
+
+	/**
+	 * Removes every element currently in the list and adds them to c, in order.
+	 * @param c The collection to add the elements to.
+	 * @return Returns the number of elements moved.
+	 */
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Removes up to maxElements elements from the front of the list and adds them to c,
+	 * in order. The whole batch is taken with a single compare-and-set on head, so a
+	 * consumer pays for one contended update per batch instead of one per element.
+	 * The batch leaves the list before any element is added to c, so if c.add throws,
+	 * the elements of the batch that were not yet added are lost, the same as
+	 * BlockingQueue.drainTo.
+	 * @param c The collection to add the elements to.
+	 * @param maxElements The most elements to move.
+	 * @return Returns the number of elements moved.
+	 * @throws IllegalArgumentException When c is this list.
+	 */
+	public int drainTo(Collection<? super E> c, int maxElements) throws IllegalArgumentException{
+		if (c == this) {
+			throw new IllegalArgumentException();
+		}
+		if (c == null || maxElements <= 0) {
+			return 0;
+		}
+		while (true) {
+			Node<E> first = head;
+			Node<E> last = tail;
+			Node<E> next = first.next;
+			if (first != head) {
+				continue;
+			}
+			if (next == null) {
+				return 0;
+			}
+			if (first == last) {
+				TAIL.compareAndSet(this, last, next);
+				continue;
+			}
+			//Find the end of the batch, never going past tail so head can't overtake it
+			Node<E> end = next;
+			int count = 1;
+			while (count < maxElements && end != last) {
+				Node<E> after = end.next;
+				if (after == null || after == end) { //End of the list, or another consumer got here first
+					break;
+				}
+				end = after;
+				count++;
+			}
+			E endItem = end.item;
+			if (first != head || !HEAD.compareAndSet(this, first, end)) {
+				continue;
+			}
+			//The nodes up to end now belong to this thread only, and are already off the list
+			try {
+				for (Node<E> n = next; n != end; n = n.next) {
+					c.add(n.item);
+					n.item = null;
+				}
+				c.add(endItem);
+			} finally {
+				end.item = null; //end is the new placeholder
+				first.next = first;
+				size.add(-count);
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * @return Returns the number of elements in the list. While other threads are
+	 * adding or removing elements this is only an estimate.
+	 */
+	public int size() {
+		long n = size.sum();
+		return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) Math.max(n, 0);
+	}
+
+	/**
+	 * Checks if the list is empty.
+	 * @return Returns true if there are no elements in the list, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return (peek() == null);
+	}
+
+	/**
+	 * Clears list of all elements that were in it when the call started.
+	 */
+	public void clear() {
+		while (drainTo(new Discard<E>(), Integer.MAX_VALUE) > 0) {
+			//Keep taking batches until the list is seen empty
+		}
+	}
+
+	/**
+	 * Creates a weakly consistent iterator over the elements, from first to last.
+	 * The iterator does not support remove().
+	 */
+	public Iterator<E> iterator() {
+		return new Iter();
+	}
+
+	/**
+	 * This class creates the nodes of the list. item is null for the placeholder, and
+	 * next points back to the node itself once the node has been taken off the list.
+	 * @author Matthew
+	 *
+	 * @param <E> The declared type of the list.
+	 */
+	private static class Node<E>{
+
+		private volatile E item;
+		private volatile Node<E> next;
+
+		public Node(E item) {
+			this.item = item;
+		}
+
+	}
+
+	/**
+	 * This class creates an iterator that follows the chain from the head at the
+	 * time it was created, skipping nodes whose element has since been taken. If the
+	 * node it is at has been taken off the list, everything before the current head has
+	 * been taken too, so it continues from the current head.
+	 * @author Matthew
+	 *
+	 */
+	private class Iter implements Iterator<E>{
+
+		private Node<E> cursor = head;
+		private E nextItem;
+
+		public Iter() {
+			advance();
+		}
+
+		/*
+		 * Moves cursor to the next node that still holds an element
+		 */
+		private void advance() {
+			nextItem = null;
+			while (cursor != null) {
+				Node<E> next = cursor.next;
+				cursor = (next == cursor) ? head : next;
+				if (cursor == null) {
+					return;
+				}
+				E e = cursor.item;
+				if (e != null) {
+					nextItem = e;
+					return;
+				}
+			}
+		}
+
+		public boolean hasNext() {
+			return (nextItem != null);
+		}
+
+		public E next() throws NoSuchElementException{
+			if (nextItem == null) {
+				throw new NoSuchElementException();
+			}
+			E e = nextItem;
+			advance();
+			return e;
+		}
+
+	}
+
+	/*
+	 * Collection that drops everything added to it, used by clear().
+	 */
+	private static class Discard<E> extends AbstractCollection<E>{
+
+		public boolean add(E e) {
+			return true;
+		}
+
+		public Iterator<E> iterator() {
+			throw new UnsupportedOperationException();
+		}
+
+		public int size() {
+			return 0;
+		}
+
+	}
+
+}
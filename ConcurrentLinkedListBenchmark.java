@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This class measures producer/consumer handoff through ConcurrentLinkedList against
+ * a LinkedList guarded by one global lock. A growing number of producer threads each
+ * add a fixed number of elements while one consumer thread takes them off the front,
+ * either one at a time with poll or in batches with drainTo.
+ * Results are printed as millions of elements handed off per second.
+ * Run with: java ConcurrentLinkedListBenchmark [elements per producer] [batch size]
+ * @author Matthew
+ *
+ */
+public class ConcurrentLinkedListBenchmark {
+
+	private ConcurrentLinkedListBenchmark() {}
+
+	/*
+	 * The producer side (offer) and the consumer side (take) of one handoff. On the
+	 * lock-free list take is poll when max is 1 and drainTo otherwise, the locked list
+	 * only ever polls.
+	 */
+	private interface Target {
+		void offer(Integer e);
+		//Takes up to max elements into batch, returns how many were taken
+		int take(ArrayList<Integer> batch, int max);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int perProducer = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		int batchSize = (args.length > 1) ? Integer.parseInt(args[1]) : 256;
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		System.out.printf("%d elements per producer, batches of %d, %d cores%n", perProducer, batchSize, cores);
+		System.out.printf("%10s %16s %18s %16s%n", "producers", "lock-free poll", "lock-free drainTo", "locked poll");
+		//Run each consumer mode once unreported, so poll, drainTo and the locked path are compiled
+		run(lockFree(), 1, perProducer, 1);
+		run(lockFree(), 1, perProducer, batchSize);
+		run(locked(), 1, perProducer, 1);
+		for (int producers = 1; producers <= Math.max(4, 2 * cores); producers *= 2) {
+			double poll = run(lockFree(), producers, perProducer, 1);
+			double drain = run(lockFree(), producers, perProducer, batchSize);
+			double lock = run(locked(), producers, perProducer, 1);
+			System.out.printf("%10d %16.2f %18.2f %16.2f%n", producers, poll, drain, lock);
+		}
+	}
+
+	private static Target lockFree() {
+		ConcurrentLinkedList<Integer> list = new ConcurrentLinkedList<>();
+		return new Target() {
+			public void offer(Integer e) { list.offer(e); }
+			public int take(ArrayList<Integer> batch, int max) {
+				if (max == 1) {
+					Integer e = list.poll();
+					if (e == null)
+						return 0;
+					batch.add(e);
+					return 1;
+				}
+				return list.drainTo(batch, max);
+			}
+		};
+	}
+
+	private static Target locked() {
+		LinkedList<Integer> list = new LinkedList<>();
+		return new Target() {
+			public void offer(Integer e) { synchronized (list) { list.add(e); } }
+			public int take(ArrayList<Integer> batch, int max) {
+				Integer e;
+				synchronized (list) { e = list.pollFirst(); }
+				if (e == null)
+					return 0;
+				batch.add(e);
+				return 1;
+			}
+		};
+	}
+
+	/*
+	 * Runs the producers and one consumer until every element has been handed off and
+	 * returns the throughput in millions of elements per second.
+	 */
+	private static double run(Target target, int producers, int perProducer, int batchSize)
+			throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			workers[p] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++)
+					target.offer(i);
+			});
+			workers[p].start();
+		}
+		long total = (long) producers * perProducer;
+		ArrayList<Integer> batch = new ArrayList<>(batchSize);
+		long begin = System.nanoTime();
+		start.countDown();
+		long taken = 0;
+		while (taken < total) {
+			int n = target.take(batch, batchSize);
+			if (n == 0)
+				Thread.yield();
+			taken += n;
+			batch.clear();
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		for (Thread w : workers)
+			w.join();
+		return total / seconds / 1e6;
+	}
+
+}
@@ -1,12 +1,28 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.AbstractList;
 import java.util.Arrays;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 /**
  * This class creates a singly linked list of objects. Also contains private class
  * Node to store elements, and private class MyIterator to iterate through the list.
+ * The list can also be created doubly linked, in which case its nodes are DoubleNodes
+ * that also point back to the node before them, so that removeLast() is O(1) and the
+ * list can serve as a deque. A list created by linkedHash() also keeps a hash index
+ * from each element to its node, which makes contains and remove(Object) O(1) expected;
+ * like a LinkedHashSet, such a list keeps insertion order and rejects duplicates.
  * 10/20/2018
  * @author Matthew
  *
@@ -17,12 +33,61 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 	private Node<E> head = null;
 	private Node<E> tail = null;
 	private int size = 0;
+	private int modCount = 0; //Number of structural changes, checked by iterators to fail fast
+	private int epoch = 0; //Bumped by snapshot(), nodes from an older epoch may be read by a snapshot
+	private final boolean doublyLinked;
+	private final HashMap<E, Node<E>> index; //Element to node, null unless the list was created by linkedHash()
+	private static final int RUN_SLOTS = 32; //Enough slots of sorted runs to sort Integer.MAX_VALUE nodes
+	private static final int BATCH_UNIT = 1 << 10; //Spliterator batches grow by this many elements per split
+	private static final int MAX_BATCH = 1 << 25;
 	
 	/**
 	 * No parameter constructor for a new LinkedList object.
 	 */
 	public LinkedList() {
-		
+		this(false);
+	}
+	
+	/**
+	 * Constructor for a new LinkedList object.
+	 * @param doublyLinked If true, each node also links to the node before it, which
+	 * makes removeLast() O(1) at the cost of one more reference per node.
+	 */
+	public LinkedList(boolean doublyLinked) {
+		this(doublyLinked, false);
+	}
+	
+	private LinkedList(boolean doublyLinked, boolean hashIndexed) {
+		this.doublyLinked = doublyLinked || hashIndexed; //Unlinking an indexed node needs the node before it
+		this.index = hashIndexed ? new HashMap<>() : null;
+	}
+	
+	/**
+	 * Creates an empty list in linked hash mode. The list is doubly linked and keeps
+	 * an index from each element to its node, updated by every add and remove, so
+	 * contains, containsAll, remove(Object) and removeAll cost O(1) expected per element
+	 * instead of a walk from the head. indexOf only walks the list if the element is
+	 * present. Like a LinkedHashSet, the list compares elements by equals and hashCode,
+	 * keeps them in insertion order and does not add an element equal to one it already
+	 * contains. Elements must not change their hash code while they are in the list.
+	 * @return Returns the new list.
+	 */
+	public static <E> LinkedList<E> linkedHash() {
+		return new LinkedList<>(true, true);
+	}
+	
+	/**
+	 * @return Returns true if the nodes of this list link in both directions.
+	 */
+	public boolean isDoublyLinked() {
+		return doublyLinked;
+	}
+	
+	/**
+	 * @return Returns true if this list was created by linkedHash().
+	 */
+	public boolean isHashIndexed() {
+		return (index != null);
 	}
 	
 	/**
@@ -34,25 +99,138 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		
 		if (e == null) { //List can't contain null elements
 			return false;
+		} else if (index != null && index.containsKey(e)) { //Linked hash mode doesn't allow duplicates
+			return false;
 		} else if (head == null){ //If e is the first element in the list, set head to e
-			head = new Node<E>(e, null);
+			head = newNode(e, null);
 			tail = head;
 			size++;
+			modCount++;
 			return true;
 		} else { //If e is not the first element in the list, add e after tail
-			tail.setNext(new Node<E>(e, null));
-			tail = tail.getNext();
+			Node<E> added = newNode(e, null);
+			setPrev(added, tail);
+			tail.setNext(added);
+			tail = added;
 			size++;
+			modCount++;
 			return true;
 		}
 	}
 	
 	/**
-	 * This method is unsupported for this implementation of LinkedList!
-	 * @throws UnsupportedOperationException if used.
+	 * Adds a new element of data type E to the front of the list.
+	 * @param e Data to be stored in the list.
+	 * @return Returns true if element was added correctly, false otherwise.
+	 */
+	public boolean addFirst(E e) {
+		if (e == null) { //List can't contain null elements
+			return false;
+		}
+		if (index != null && index.containsKey(e)) { //Linked hash mode doesn't allow duplicates
+			return false;
+		}
+		Node<E> added = newNode(e, head);
+		setPrev(head, added);
+		head = added;
+		if (tail == null) { //e is the only element in the list
+			tail = added;
+		}
+		size++;
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Removes and returns the first element of the list.
+	 * @return Returns the first element, or null if the list is empty.
+	 */
+	public E pollFirst() {
+		if (head == null) {
+			return null;
+		}
+		E e = head.getData();
+		unlink(null, head);
+		return e;
+	}
+	
+	/**
+	 * Removes and returns the last element of the list. This is O(1) for a doubly linked
+	 * list, a singly linked list has to walk from the head to find the node before the tail.
+	 * @return Returns the last element.
+	 * @throws NoSuchElementException When the list is empty.
+	 */
+	public E removeLast() throws NoSuchElementException{
+		if (tail == null) {
+			throw new NoSuchElementException();
+		}
+		Node<E> before = null;
+		if (doublyLinked) {
+			before = ((DoubleNode<E>) tail).getPrev();
+		} else if (head != tail) {
+			before = head;
+			while (before.getNext() != tail) {
+				before = before.getNext();
+			}
+		}
+		E e = tail.getData();
+		unlink(before, tail);
+		return e;
+	}
+	
+	/**
+	 * Adds every element of c to the end of the list, in the order c returns them.
+	 * The new nodes are linked into a chain first and then spliced onto the tail in
+	 * one step. Null elements are skipped.
+	 * @param c The collection of elements to add.
+	 * @return Returns true if the list changed as a result of the call.
 	 */
 	public boolean addAll(Collection<? extends E> c) {
-		throw new UnsupportedOperationException();
+		if (c == null) {
+			return false;
+		}
+		Node<E> first = null;
+		Node<E> last = null;
+		int added = 0;
+		try {
+			for (E e : c) { //Build the chain, c may be this list since nothing is linked in yet
+				if (e == null) { //List can't contain null elements
+					continue;
+				}
+				if (index != null && index.containsKey(e)) { //Linked hash mode doesn't allow duplicates
+					continue;
+				}
+				Node<E> n = newNode(e, null);
+				if (first == null) {
+					first = n;
+				} else {
+					setPrev(n, last);
+					last.setNext(n);
+				}
+				last = n;
+				added++;
+			}
+		} catch (RuntimeException | Error ex) { //The chain is never spliced in, so drop its nodes from the index
+			if (index != null) {
+				for (Node<E> n = first; n != null; n = n.getNext()) {
+					index.remove(n.getData());
+				}
+			}
+			throw ex;
+		}
+		if (added == 0) {
+			return false;
+		}
+		if (head == null) { //List was empty, the chain becomes the list
+			head = first;
+		} else {
+			setPrev(first, tail);
+			tail.setNext(first);
+		}
+		tail = last;
+		size += added;
+		modCount++;
+		return true;
 	}
 	
 	/**
@@ -62,6 +240,10 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		head = null;
 		tail = null;
 		size = 0;
+		if (index != null) {
+			index.clear();
+		}
+		modCount++;
 	}
 	
 	/**
@@ -82,6 +264,9 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 	 * @return Returns true if the object is in the list, false otherwise;
 	 */
 	public boolean contains(Object o) {
+		if (index != null) { //Linked hash mode, look o up directly
+			return index.containsKey(o);
+		}
 		return (indexOf(o) >= 0); //If o is in the list, then indexOf(o) should be a positive integer
 	}
 	
@@ -94,12 +279,25 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		if (c == null) { //List can't contain null elements
 			return false;
 		}
-		for (Object o : c) { //Check to see if each element in c is also in the list
-			if (!this.contains(o)) {
-				return false;
+		if (c.isEmpty()) {
+			return true;
+		}
+		if (index != null) { //Linked hash mode, look each element up directly
+			for (Object o : c) {
+				if (!index.containsKey(o)) {
+					return false;
+				}
 			}
+			return true;
 		}
-		return true;
+		//Walk the list once, crossing off the elements of c as they are found
+		HashSet<Object> missing = new HashSet<>(c);
+		for (Node<E> n = head; n != null; n = n.getNext()) {
+			if (missing.remove(n.getData()) && missing.isEmpty()) {
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	public boolean equals(Object o) {
@@ -140,28 +338,28 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 	 */
 	public boolean remove(Object o) { 
 		
+		if (index != null) { //Linked hash mode, find the node directly and unlink it
+			Node<E> n = (o == null) ? null : index.get(o);
+			if (n == null) {
+				return false;
+			}
+			unlink(((DoubleNode<E>) n).getPrev(), n);
+			return true;
+		}
 		if (o == null || head == null) { //Argument is null or list is empty
 			return false;
 		} else if (o.getClass() != head.getData().getClass()) { //Data type mismatch
 			return false;
 		} else if (head.getData() == o) { //Remove the head
-			head = head.getNext();
-			size--;
+			unlink(null, head);
 			return true;
 		} 
 		
 		Node<E> beforeRemoval = head;
 		while (beforeRemoval.getNext() != null) {
 			if (beforeRemoval.getNext().getData() == o) { //Node after beforeRemoval matches
-				if (beforeRemoval.getNext() == tail) { //Node after beforeRemoval is the tail
-					beforeRemoval.setNext(null);
-					size--;
-					return true;
-				} else { //Node after beforeRemoval is not the tail
-					beforeRemoval.setNext(beforeRemoval.getNext().getNext());
-					size--;
-					return true;
-				}
+				unlink(beforeRemoval, beforeRemoval.getNext());
+				return true;
 			} else { //Node after beforeRemoval isn't the node to remove, move to next node
 				beforeRemoval = beforeRemoval.getNext();
 			}
@@ -170,19 +368,38 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 	}
 	
 	/**
-	 * This method is unsupported for this implementation of LinkedList!
-	 * @throws UnsupportedOperationException if used.
+	 * Removes every element of the list that is equal to an element of c, in a single
+	 * pass that checks each element against a hashed set built from c.
+	 * @param c The collection of elements to remove.
+	 * @return Returns true if the list changed as a result of the call.
 	 */
 	public boolean removeAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		if (c == null) {
+			return false;
+		}
+		if (index != null && c.size() < size) { //Linked hash mode, unlink each element of c directly
+			boolean changed = false;
+			for (Object o : c) {
+				if (remove(o)) {
+					changed = true;
+				}
+			}
+			return changed;
+		}
+		return filter(lookup(c), false);
 	}
 	
 	/**
-	 * This method is unsupported for this implementation of LinkedList!
-	 * @throws UnsupportedOperationException if used.
+	 * Removes every element of the list that is not equal to an element of c, in a
+	 * single pass that checks each element against a hashed set built from c.
+	 * @param c The collection of elements to keep.
+	 * @return Returns true if the list changed as a result of the call.
 	 */
 	public boolean retainAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		if (c == null) {
+			return false;
+		}
+		return filter(lookup(c), true);
 	}
 	
 	/**
@@ -208,32 +425,65 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 	
 	/**
 	 * Returns an array of specified type of all elements in the list as they
-	 * appear in the list.
+	 * appear in the list. The elements are copied straight from the nodes into a if it
+	 * is large enough, otherwise into a new array of the same type and exact size.
 	 * @param a The array to be filled with elements in the list.
 	 * @return Returns the list in array form.
 	 * @throws IllegalArgumentException When method is called with null parameter.
+	 * @throws ArrayStoreException When an element is not an instance of the array's type.
 	 */
+	@SuppressWarnings("unchecked")
 	public <T> T[] toArray(T[] a) throws IllegalArgumentException{
 		if (a == null) { //Throw exception if argument is null
 			throw new IllegalArgumentException();
 		}
-		ArrayList<T> t = new ArrayList<>();
-		Iterator itr = iterator();
-		while (itr.hasNext()) { //Fill a new ArrayList with the elements of the list
-			t.add((T) itr.next());
+		T[] resultArray = (a.length >= size) ? a : (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+		int i = 0;
+		for (Node<E> cursor = head; cursor != null; cursor = cursor.getNext()) {
+			resultArray[i++] = (T) cursor.getData();
 		}
-		
-		return t.toArray(a); //Utilize ArrayList's toArray(T[] a) method :)
+		if (resultArray.length > size) { //Mark the end of the elements, as Collection.toArray specifies
+			resultArray[size] = null;
+		}
+		return resultArray;
+	}
+	
+	/**
+	 * Returns an unmodifiable list of the elements, in the order they appear in the
+	 * list, as they are now. Taking a snapshot is O(1): it reads the first size nodes
+	 * in place. Adding to either end and removing the first element leave the links
+	 * between those nodes as they were. Removing any other element that the snapshot
+	 * holds relinks the node before it, so only the nodes up to that one are copied
+	 * first. A sort copies every node the snapshot holds, since it relinks them all.
+	 * The snapshot is unaffected by later changes and can be iterated while the list
+	 * is being modified. Like the list, get(int) is O(index).
+	 * @return Returns the snapshot of the list.
+	 */
+	public List<E> snapshot() {
+		epoch++;
+		return new Snapshot(head, size);
 	}
 	
 	/**
-	 * Creates a new MyIterator object to iterate through the list
+	 * Creates a new MyIterator object to iterate through the list. The iterator
+	 * supports remove() in O(1).
 	 */
-	public MyIterator<E> iterator() { 
-		//Creating a cursor Node inside class MyIterator gave rise to several issues
-		//So create the Node within class LinkedList and pass it as an argument
-		Node<E> cursor = new Node<E>(null, head);
-		return new MyIterator<E>(cursor);
+	public Iterator<E> iterator() { 
+		return new MyIterator(head);
+	}
+	
+	/**
+	 * Creates a spliterator over the elements in list order. A linked list can't be
+	 * split in the middle without walking to it, so each split copies the next batch
+	 * of elements into an array and hands that off instead; batches grow by 1024
+	 * elements per split, so short lists stay cheap and long lists give parallel
+	 * streams chunks big enough to be worth a thread. Reports ORDERED, SIZED, SUBSIZED
+	 * and NONNULL, plus DISTINCT in linked hash mode. The spliterator binds to the list
+	 * when it is first used and fails fast if the list changes after that.
+	 * @return Returns an instance of the spliterator.
+	 */
+	public Spliterator<E> spliterator() {
+		return new LinkedSpliterator();
 	}
 	
 	/**
@@ -246,6 +496,17 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		if (o == null) { //null cannot be an element of the list
 			return -1;
 		}
+		if (this.index != null) { //Linked hash mode, only walk if o is in the list, comparing nodes instead of elements
+			Node<E> target = this.index.get(o);
+			if (target == null) {
+				return -1;
+			}
+			int position = 0;
+			for (Node<E> n = head; n != target; n = n.getNext()) {
+				position++;
+			}
+			return position;
+		}
 		int index = 0;
 		Iterator itr = iterator();
 		//Iterate through the list and find the element o
@@ -280,33 +541,317 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		return cursor.getData();
 	}
 	
+	/**
+	 * Returns a string representation of the elements in the list,
+	 * in the order they appear in the list.
+	 * @return Returns a string representation of the list.
+	 */
 	public String toString() {
-		String result = "[";
-		int counter = 0;
-		for (E e : this) {
-			result = result + String.valueOf(e);
-			counter++;
-			if (counter != size) {
-				result = result + ", ";
+		StringBuilder result = new StringBuilder(2 + 4 * size);
+		try {
+			appendTo(result, Integer.MAX_VALUE);
+		} catch (IOException e) { //StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return result.toString();
+	}
+	
+	/**
+	 * Writes the same representation as toString to out in a single pass over the
+	 * nodes, without building the whole string in memory. Output stops after
+	 * maxElements elements, with "..." marking that elements were left out.
+	 * @param out Where the representation is written.
+	 * @param maxElements The most elements to write, Integer.MAX_VALUE for all of them.
+	 * @throws IOException When out throws.
+	 * @throws IllegalArgumentException When maxElements is negative.
+	 */
+	public void appendTo(Appendable out, int maxElements) throws IOException, IllegalArgumentException{
+		if (maxElements < 0) {
+			throw new IllegalArgumentException("appendTo in class LinkedList.java requires a non-negative limit");
+		}
+		out.append('[');
+		int written = 0;
+		for (Node<E> cursor = head; cursor != null; cursor = cursor.getNext()) {
+			if (written > 0) {
+				out.append(", ");
 			}
+			if (written++ == maxElements) {
+				out.append("...");
+				break;
+			}
+			out.append(String.valueOf(cursor.getData()));
 		}
-		result = result + "]";
-		return result;
+		out.append(']');
 	}
 	
 	/**
 	 * Sorts the list via the natural order of the elements.
+	 * @throws ClassCastException When the elements are not mutually comparable.
 	 */
-	@SuppressWarnings("unchecked")
 	public void sort() {
-		Object[] array = this.toArray();
-		Arrays.sort(array);
-		this.clear();
-		for (Object o : array) {
-			this.add((E) o);
+		sort(null);
+	}
+	
+	/**
+	 * Sorts the list with a stable bottom-up merge sort. The existing nodes are relinked
+	 * in place, so no nodes are allocated and the extra space used is O(1). If the
+	 * comparison throws, every node is linked back into the list before the exception is
+	 * rethrown, so the list keeps all of its elements, in an unspecified order.
+	 * @param c The comparator that orders the elements, or null to use their natural order.
+	 * @throws ClassCastException When c is null and the elements are not mutually comparable.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void sort(Comparator<? super E> c) {
+		//runs[i] holds a sorted run of 2^i nodes or null, like the digits of a binary counter.
+		//Each node is merged in as soon as it is reached, so merges work on recently
+		//visited nodes instead of walking the whole list once per pass
+		Node<E> lastShared = null; //Every node is relinked, so copy the ones a snapshot reads first
+		for (Node<E> n = head; n != null; n = n.getNext()) {
+			if (shared(n)) {
+				lastShared = n;
+			}
+		}
+		if (lastShared != null) {
+			copyThrough(null, lastShared);
+		}
+		Node<E>[] runs = new Node[RUN_SLOTS];
+		Node<E> front = new Node<E>(null, null); //Placeholder that merged chains are linked after
+		Node<E> cursor = head;
+		Node<E> result = null;
+		boolean merging = false; //True while the nodes of a merge are only reachable from front
+		try {
+			while (cursor != null) {
+				Node<E> run = cursor;
+				cursor = cursor.getNext();
+				run.setNext(null);
+				int i = 0;
+				for (; runs[i] != null; i++) { //runs[i] holds earlier elements, so it goes first to keep the sort stable
+					Node<E> earlier = runs[i];
+					runs[i] = null;
+					merging = true;
+					run = merge(earlier, run, front, c);
+					merging = false;
+				}
+				runs[i] = run;
+			}
+			for (int i = 0; i < RUN_SLOTS; i++) { //Higher slots hold earlier elements
+				Node<E> run = runs[i];
+				if (run == null) {
+					continue;
+				}
+				runs[i] = null;
+				if (result == null) {
+					result = run;
+				} else {
+					Node<E> later = result;
+					result = null;
+					merging = true;
+					result = merge(run, later, front, c);
+					merging = false;
+				}
+			}
+		} catch (RuntimeException | Error e) { //Put every node back before rethrowing
+			Node<E> chain = merging ? front.getNext() : null;
+			for (Node<E> run : runs) {
+				chain = concat(run, chain);
+			}
+			chain = concat(result, chain);
+			relink(concat(chain, cursor));
+			throw e;
 		}
+		relink(result);
 	}
 	
+	/*
+	 * Makes the chain starting at first the contents of the list, finding the new
+	 * tail and fixing the links back to each node if the list is doubly linked.
+	 */
+	private void relink(Node<E> first) {
+		head = first;
+		Node<E> before = null;
+		for (Node<E> n = first; n != null; n = n.getNext()) {
+			setPrev(n, before);
+			before = n;
+		}
+		tail = before;
+		modCount++;
+	}
+	
+	/*
+	 * Links chain b after the last node of chain a and returns the joined chain.
+	 */
+	private Node<E> concat(Node<E> a, Node<E> b) {
+		if (a == null) {
+			return b;
+		}
+		Node<E> last = a;
+		while (last.getNext() != null) {
+			last = last.getNext();
+		}
+		last.setNext(b);
+		return a;
+	}
+	
+	/*
+	 * Merges the sorted chains a and b, taking from a when elements are equal so that
+	 * the sort is stable. front is a placeholder node to link the merged chain after.
+	 * Returns the first node of the merged chain. If the comparison throws, every node
+	 * of a and b is left in one chain after front.
+	 */
+	@SuppressWarnings("unchecked")
+	private Node<E> merge(Node<E> a, Node<E> b, Node<E> front, Comparator<? super E> c) {
+		Node<E> last = front;
+		try {
+			while (a != null && b != null) {
+				int cmp = (c == null) ? ((Comparable<? super E>) b.getData()).compareTo(a.getData())
+					: c.compare(b.getData(), a.getData());
+				if (cmp < 0) {
+					last.setNext(b);
+					b = b.getNext();
+				} else {
+					last.setNext(a);
+					a = a.getNext();
+				}
+				last = last.getNext();
+			}
+		} catch (RuntimeException | Error e) {
+			last.setNext(concat(a, b));
+			throw e;
+		}
+		last.setNext((a != null) ? a : b);
+		return front.getNext();
+	}
+	
+	
+	/*
+	 * Returns c itself if it is already a HashSet (or LinkedHashSet), otherwise a
+	 * HashSet copy of it, so that every lookup is O(1) expected. Other sets are copied
+	 * too, since a sorted set like TreeSet or BST costs O(log m) per lookup.
+	 */
+	private Collection<?> lookup(Collection<?> c) {
+		return (c instanceof HashSet) ? c : new HashSet<>(c);
+	}
+	
+	/*
+	 * Unlinks every node whose membership in c differs from keep, in one pass.
+	 */
+	private boolean filter(Collection<?> c, boolean keep) {
+		int before = size;
+		Node<E> previous = null;
+		Node<E> copied = null; //Last node copied away from a snapshot, the next copy starts after it
+		Node<E> n = head;
+		while (n != null) {
+			Node<E> next = n.getNext();
+			if (c.contains(n.getData()) != keep) {
+				if (shared(previous) && shared(n)) { //Copy only the kept nodes since the last copy
+					previous = copyThrough(copied, previous);
+					copied = previous;
+				}
+				unlink(previous, n);
+			} else {
+				previous = n;
+			}
+			n = next;
+		}
+		return (size != before);
+	}
+	
+	/*
+	 * Creates a node of the kind this list uses, and indexes it in linked hash mode.
+	 */
+	private Node<E> newNode(E e, Node<E> next) {
+		if (!doublyLinked) {
+			return new Node<E>(e, next);
+		}
+		Node<E> n = new DoubleNode<E>(e, next);
+		if (index != null) {
+			index.put(e, n);
+		}
+		return n;
+	}
+	
+	/*
+	 * Links n back to prev if the list is doubly linked.
+	 */
+	private void setPrev(Node<E> n, Node<E> prev) {
+		if (doublyLinked && n != null) {
+			((DoubleNode<E>) n).setPrev(prev);
+		}
+	}
+	
+	/*
+	 * Removes n from the list in O(1), given the node before it (null if n is the head).
+	 * If a snapshot reads the link from before to n, the nodes up to before are copied
+	 * first, which walks from the head.
+	 */
+	private void unlink(Node<E> before, Node<E> n) {
+		if (shared(before) && shared(n)) {
+			before = copyThrough(null, before);
+		}
+		Node<E> after = n.getNext();
+		if (index != null) {
+			index.remove(n.getData());
+		}
+		if (before == null) { //Removing the head
+			head = after;
+		} else {
+			before.setNext(after);
+		}
+		if (after == null) { //Removing the tail
+			tail = before;
+		} else {
+			setPrev(after, before);
+		}
+		if (!shared(n)) { //A snapshot may still read on from a removed node
+			n.setNext(null);
+			setPrev(n, null);
+		}
+		size--;
+		modCount++;
+	}
+	
+	/*
+	 * Checks if n was created before the last snapshot, in which case a snapshot
+	 * may read its link to the next node.
+	 */
+	private boolean shared(Node<E> n) {
+		return (n != null && n.version != epoch);
+	}
+	
+	/*
+	 * Replaces the shared nodes from the first one after hint through last with copies,
+	 * so that they can be relinked without changing a snapshot. hint is a node before
+	 * them, or null to start from the head. The shared nodes are the ones that were in
+	 * the list at the last snapshot, so they are all in one run and only the nodes
+	 * added in front of them are skipped. Returns the copy of last.
+	 */
+	private Node<E> copyThrough(Node<E> hint, Node<E> last) {
+		Node<E> before = hint;
+		Node<E> n = (hint == null) ? head : hint.getNext();
+		while (!shared(n)) {
+			before = n;
+			n = n.getNext();
+		}
+		while (true) {
+			Node<E> copy = newNode(n.getData(), n.getNext()); //Reindexes the copy in linked hash mode
+			setPrev(copy, before);
+			if (before == null) {
+				head = copy;
+			} else {
+				before.setNext(copy);
+			}
+			before = copy;
+			if (n == last) {
+				break;
+			}
+			n = n.getNext();
+		}
+		setPrev(before.getNext(), before);
+		if (tail == last) {
+			tail = before;
+		}
+		return before;
+	}
 	
 	/**
 	 * This class creates an iterator that iterates through the list.
@@ -314,28 +859,40 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 	 *
 	 * @param <E> The declared type of the list.
 	 */
-	@SuppressWarnings("hiding")
-	private class MyIterator<E> implements Iterator<E>{
+	private class MyIterator implements Iterator<E>{
 		
-		private Node<E> cursor;
+		private Node<E> next; //Node to be returned by next()
+		private Node<E> lastReturned; //Node last returned by next(), null once it is removed
+		private Node<E> beforeLast; //Node before lastReturned, null if lastReturned is the head
+		private Node<E> previous; //Node before next, null if next is the head
+		private Node<E> copied; //Last node this iterator copied away from a snapshot, the next copy starts after it
+		private int expectedModCount = modCount; //Changes to the list after this point make next() fail
 		
 		/**
 		 * Constructor for MyIterator object.
-		 * @param cursor Node created via calling LinkedList.iterator()
+		 * @param head First node of the list.
 		 */
-		public MyIterator(Node<E> cursor) {
-			this.cursor = cursor;
+		public MyIterator(Node<E> head) {
+			this.next = head;
 		}
 		
 		/**
 		 * Returns the next element in the list.
+		 * @throws ConcurrentModificationException When the list was changed after the
+		 * iterator was created, other than through this iterator.
 		 */
 		public E next() throws NoSuchElementException{
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
 			if (!hasNext()) {
 				throw new NoSuchElementException();
 			}
-			cursor = cursor.getNext();
-			return (E) cursor.getData();
+			beforeLast = previous;
+			lastReturned = next;
+			previous = next;
+			next = next.getNext();
+			return lastReturned.getData();
 		}
 		
 		/**
@@ -343,11 +900,179 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		 * Must be called before calling next()
 		 */
 		public boolean hasNext() {
-			if (cursor.getNext() == null) {
+			return (next != null);
+		}
+		
+		/**
+		 * Removes the element last returned by next() from the list, in O(1) since the
+		 * iterator remembers the node before it.
+		 * @throws IllegalStateException When next() has not been called since the last remove().
+		 */
+		public void remove() {
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (shared(beforeLast) && shared(lastReturned)) { //Copy only the kept nodes since the last copy
+				beforeLast = copyThrough(copied, beforeLast);
+				copied = beforeLast;
+			}
+			unlink(beforeLast, lastReturned);
+			previous = beforeLast;
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+		
+	}
+	
+	/**
+	 * This class creates a spliterator that walks the node chain and splits off
+	 * array batches of growing size.
+	 * @author Matthew
+	 *
+	 */
+	private class LinkedSpliterator implements Spliterator<E>{
+		
+		private Node<E> cursor; //Next node to hand out
+		private int remaining = -1; //Elements left to hand out, -1 until bound to the list
+		private int batch = 0; //Size of the last batch split off
+		private int expectedModCount;
+		
+		/*
+		 * Binds to the list as it is now, on first use
+		 */
+		private void bind() {
+			if (remaining < 0) {
+				cursor = head;
+				remaining = size;
+				expectedModCount = modCount;
+			}
+		}
+		
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			bind();
+			if (remaining <= 0 || cursor == null) {
 				return false;
-			} else {
-				return true;
 			}
+			E e = cursor.getData();
+			cursor = cursor.getNext();
+			remaining--;
+			action.accept(e);
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return true;
+		}
+		
+		public void forEachRemaining(Consumer<? super E> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			bind();
+			Node<E> n = cursor;
+			int count = remaining;
+			cursor = null;
+			remaining = 0;
+			for (; count > 0 && n != null; count--) {
+				action.accept(n.getData());
+				n = n.getNext();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+		
+		/*
+		 * Copies the next batch of elements into an array and returns a spliterator over it
+		 */
+		public Spliterator<E> trySplit() {
+			bind();
+			if (remaining <= 1 || cursor == null) {
+				return null;
+			}
+			int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+			Object[] elements = new Object[n];
+			int count = 0;
+			for (; count < n && cursor != null; count++) {
+				elements[count] = cursor.getData();
+				cursor = cursor.getNext();
+			}
+			batch = count;
+			remaining -= count;
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return Spliterators.spliterator(elements, 0, count, characteristics());
+		}
+		
+		public long estimateSize() {
+			bind();
+			return remaining;
+		}
+		
+		public int characteristics() {
+			int characteristics = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+			return (index != null) ? characteristics | Spliterator.DISTINCT : characteristics;
+		}
+		
+	}
+	
+	/**
+	 * This class creates the unmodifiable list returned by snapshot(), over the first
+	 * size nodes of the list at the time. The list copies any of these nodes before
+	 * changing its link to the next one, so they stay as they were.
+	 * @author Matthew
+	 *
+	 */
+	private class Snapshot extends AbstractList<E>{
+		
+		private final Node<E> first;
+		private final int size;
+		
+		public Snapshot(Node<E> first, int size) {
+			this.first = first;
+			this.size = size;
+		}
+		
+		public E get(int index) throws IndexOutOfBoundsException{
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException();
+			}
+			Node<E> cursor = first;
+			for (int i = 0; i < index; i++) {
+				cursor = cursor.getNext();
+			}
+			return cursor.getData();
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		public Iterator<E> iterator() {
+			return new Iterator<E>() {
+				private Node<E> cursor = first;
+				private int remaining = size; //Nodes appended since the snapshot follow the last one
+				
+				public boolean hasNext() {
+					return (remaining > 0);
+				}
+				
+				public E next() throws NoSuchElementException{
+					if (remaining <= 0) {
+						throw new NoSuchElementException();
+					}
+					E e = cursor.getData();
+					cursor = cursor.getNext();
+					remaining--;
+					return e;
+				}
+			};
 		}
 		
 	}
@@ -363,6 +1088,7 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		
 		private E data;
 		private Node<E> next;
+		private int version = epoch; //Epoch of the list when the node was created
 		
 		/**
 		 * Creates a new Node object.
@@ -399,5 +1125,44 @@ public class LinkedList<E> implements Collection<E>, Iterable<E> {
 		}
 		
 	}
+	
+	/**
+	 * This class creates the Node objects of a doubly linked list, which also
+	 * reference the Node before them.
+	 * @author Matthew
+	 *
+	 * @param <E> The declared type of the list.
+	 */
+	@SuppressWarnings("hiding")
+	private class DoubleNode<E> extends Node<E>{
+		
+		private Node<E> prev;
+		
+		/**
+		 * Creates a new DoubleNode object.
+		 * @param data The data to be stored in the Node.
+		 * @param next The reference to the next Node in the list.
+		 */
+		public DoubleNode(E data, Node<E> next){
+			super(data, next);
+		}
+		
+		/**
+		 * Getter method for the Node before this Node in the list.
+		 * @return Returns the previous Node, or null if this Node is the head.
+		 */
+		public Node<E> getPrev(){
+			return prev;
+		}
+		
+		/**
+		 * Sets the reference for the Node before this Node in the list.
+		 * @param prev The new previous Node.
+		 */
+		public void setPrev(Node<E> prev) {
+			this.prev = prev;
+		}
+		
+	}
 
 }
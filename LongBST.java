@@ -0,0 +1,444 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * This class creates a binary search tree of long keys. Keys are stored unboxed and
+ * compared with primitive operators, so lookups never allocate. The tree cannot
+ * contain duplicate keys. Like BST, the tree can be created in balanced mode, in
+ * which case it rebalances itself (AVL) after every add and remove.
+ * Navigation methods take the value to return when there is no such key, since
+ * a long cannot be null.
+ * @author Matthew Goodbar
+ *
+ */
+public class LongBST {
+
+	private LongNode root;
+	private int size = 0;
+	private final boolean balanced;
+	//Scratch space holding the root-to-node path during add and remove
+	private LongNode[] path;
+	private static final int INITIAL_PATH_LENGTH = 64;
+
+	/**
+	 * Creates an empty, unbalanced binary search tree.
+	 */
+	public LongBST() {
+		this(false);
+	}
+
+	/**
+	 * Creates an empty binary search tree.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 */
+	public LongBST(boolean balanced) {
+		this.balanced = balanced;
+	}
+
+	/**
+	 * @return Returns true if this tree rebalances itself on add and remove.
+	 */
+	public boolean isBalanced() {
+		return balanced;
+	}
+
+	/**
+	 * Adds a key to the tree. Cannot add duplicate keys.
+	 * @param key Key to be added
+	 * @return Returns true if the key was added successfully, false if otherwise.
+	 */
+	public boolean add(long key) {
+		//Tree is empty, set a new root
+		if (root == null) {
+			root = new LongNode(key);
+			size++;
+			return true;
+		}
+		int depth = 0;
+		LongNode currentNode = root;
+		while (true) {
+			//Don't allow duplicates
+			if (currentNode.key == key) {
+				clearPath(depth);
+				return false;
+			}
+			if (balanced)
+				pushPath(depth++, currentNode);
+			if (currentNode.key > key) {
+				if (currentNode.left == null) {
+					currentNode.left = new LongNode(key);
+					break;
+				}
+				currentNode = currentNode.left;
+			} else {
+				if (currentNode.right == null) {
+					currentNode.right = new LongNode(key);
+					break;
+				}
+				currentNode = currentNode.right;
+			}
+		}
+		size++;
+		retrace(depth);
+		return true;
+	}
+
+	/**
+	 * Checks to see if the given key is contained within the tree
+	 * @param key The key to be searched for in the tree.
+	 * @return Returns true if the given key is in the tree, false if otherwise.
+	 */
+	public boolean contains(long key) {
+		LongNode currentNode = root;
+		while (currentNode != null) {
+			if (currentNode.key == key)
+				return true;
+			currentNode = (currentNode.key > key) ? currentNode.left : currentNode.right;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the given key from the tree if it exists.
+	 * @param key The key to be removed from the tree.
+	 * @return Returns true if the key was successfully removed
+	 * from the tree, false if otherwise.
+	 */
+	public boolean remove(long key) {
+		int depth = 0;
+		LongNode n = root;
+		while (n != null && n.key != key) {
+			pushPath(depth++, n);
+			n = (n.key > key) ? n.left : n.right;
+		}
+		if (n == null) {
+			clearPath(depth);
+			return false;
+		}
+		//Two children, move the predecessor's key up and unlink the predecessor instead
+		if (n.left != null && n.right != null) {
+			LongNode target = n;
+			pushPath(depth++, n);
+			n = n.left;
+			while (n.right != null) {
+				pushPath(depth++, n);
+				n = n.right;
+			}
+			target.key = n.key;
+		}
+		LongNode child = (n.left != null) ? n.left : n.right;
+		replaceChild(depth, n, child);
+		size--;
+		retrace(depth);
+		return true;
+	}
+
+	/**
+	 * Clears the tree of all keys.
+	 */
+	public void clear() {
+		root = null;
+		size = 0;
+	}
+
+	/**
+	 * @return Returns the number of keys in the tree.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks to see if the tree is empty.
+	 * @return Returns true if the tree has no keys, false if otherwise.
+	 */
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	/**
+	 * @return Returns the first (lowest) key currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
+	 */
+	public long first() throws NoSuchElementException {
+		LongNode cursor = root;
+		if (cursor == null)
+			throw new NoSuchElementException();
+		while (cursor.left != null) {
+			cursor = cursor.left;
+		}
+		return cursor.key;
+	}
+
+	/**
+	 * @return Returns the last (highest) key currently in this set.
+	 * @throws NoSuchElementException When the tree is empty.
+	 */
+	public long last() throws NoSuchElementException {
+		LongNode cursor = root;
+		if (cursor == null)
+			throw new NoSuchElementException();
+		while (cursor.right != null) {
+			cursor = cursor.right;
+		}
+		return cursor.key;
+	}
+
+	/**
+	 * @param key The given key to compare to
+	 * @param ifNone The value to return if there is no such key.
+	 * @return Returns the least key in this set greater than or equal to the given key,
+	 * or ifNone if there is no such key.
+	 */
+	public long ceiling(long key, long ifNone) {
+		long result = ifNone;
+		LongNode n = root;
+		while (n != null) {
+			if (n.key == key)
+				return key;
+			if (key < n.key) {
+				result = n.key;
+				n = n.left;
+			} else {
+				n = n.right;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param key The given key to compare to
+	 * @param ifNone The value to return if there is no such key.
+	 * @return Returns the greatest key in this set less than or equal to the given key,
+	 * or ifNone if there is no such key.
+	 */
+	public long floor(long key, long ifNone) {
+		long result = ifNone;
+		LongNode n = root;
+		while (n != null) {
+			if (n.key == key)
+				return key;
+			if (key > n.key) {
+				result = n.key;
+				n = n.right;
+			} else {
+				n = n.left;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param key The given key to compare to
+	 * @param ifNone The value to return if there is no such key.
+	 * @return Returns the least key in this set strictly greater than the given key,
+	 * or ifNone if there is no such key.
+	 */
+	public long higher(long key, long ifNone) {
+		long result = ifNone;
+		LongNode n = root;
+		while (n != null) {
+			if (key < n.key) {
+				result = n.key;
+				n = n.left;
+			} else {
+				n = n.right;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param key The given key to compare to
+	 * @param ifNone The value to return if there is no such key.
+	 * @return Returns the greatest key in this set strictly less than the given key,
+	 * or ifNone if there is no such key.
+	 */
+	public long lower(long key, long ifNone) {
+		long result = ifNone;
+		LongNode n = root;
+		while (n != null) {
+			if (key > n.key) {
+				result = n.key;
+				n = n.right;
+			} else {
+				n = n.left;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates and returns an iterator that iterates through
+	 * the keys in ascending order without boxing them.
+	 * @return Returns an instance of the iterator.
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new LongBSTIter(root);
+	}
+
+	/**
+	 * @return Returns the keys of the tree in ascending order.
+	 */
+	public long[] toArray() {
+		long[] result = new long[size];
+		int counter = 0;
+		PrimitiveIterator.OfLong itr = iterator();
+		while (itr.hasNext()) {
+			result[counter++] = itr.nextLong();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a string representation of the keys in the tree,
+	 * listed in ascending order.
+	 * @return Returns a string representation of the tree.
+	 */
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	/*
+	 * Stores n at the given depth of the path used by add and remove, growing
+	 * the array if the tree is deeper than it has been so far.
+	 */
+	private void pushPath(int depth, LongNode n) {
+		if (path == null)
+			path = new LongNode[INITIAL_PATH_LENGTH];
+		else if (depth == path.length)
+			path = Arrays.copyOf(path, path.length * 2);
+		path[depth] = n;
+	}
+	/*
+	 * Drops the references held in the first depth entries of the path.
+	 */
+	private void clearPath(int depth) {
+		for (int i = 0; i < depth; i++)
+			path[i] = null;
+	}
+	/*
+	 * Makes child take the place of n under the parent at path[depth - 1],
+	 * or as the root if depth is 0.
+	 */
+	private void replaceChild(int depth, LongNode n, LongNode child) {
+		if (depth == 0)
+			root = child;
+		else if (path[depth - 1].left == n)
+			path[depth - 1].left = child;
+		else
+			path[depth - 1].right = child;
+	}
+	/*
+	 * Rebalances every node on the path from path[depth - 1] back up to the root
+	 * if the tree is in balanced mode, otherwise just drops the path.
+	 */
+	private void retrace(int depth) {
+		if (!balanced) {
+			clearPath(depth);
+			return;
+		}
+		for (int i = depth - 1; i >= 0; i--) {
+			LongNode n = path[i];
+			path[i] = null;
+			LongNode replacement = rebalance(n);
+			if (replacement != n)
+				replaceChild(i, n, replacement);
+		}
+	}
+
+	/*
+	 * Recomputes the height of n and performs the AVL rotation(s) needed if the
+	 * heights of its subtrees differ by more than one. Returns the new root of
+	 * the subtree.
+	 */
+	private LongNode rebalance(LongNode n) {
+		updateHeight(n);
+		int balance = height(n.left) - height(n.right);
+		if (balance > 1) {
+			if (height(n.left.left) < height(n.left.right))
+				n.left = rotateLeft(n.left);
+			return rotateRight(n);
+		}
+		if (balance < -1) {
+			if (height(n.right.right) < height(n.right.left))
+				n.right = rotateRight(n.right);
+			return rotateLeft(n);
+		}
+		return n;
+	}
+	private LongNode rotateRight(LongNode n) {
+		LongNode pivot = n.left;
+		n.left = pivot.right;
+		pivot.right = n;
+		updateHeight(n);
+		updateHeight(pivot);
+		return pivot;
+	}
+	private LongNode rotateLeft(LongNode n) {
+		LongNode pivot = n.right;
+		n.right = pivot.left;
+		pivot.left = n;
+		updateHeight(n);
+		updateHeight(pivot);
+		return pivot;
+	}
+	private int height(LongNode n) {
+		return (n == null) ? 0 : n.height;
+	}
+	private void updateHeight(LongNode n) {
+		n.height = 1 + Math.max(height(n.left), height(n.right));
+	}
+
+	/*
+	 * Creates the nodes to be used as storage for keys in the tree.
+	 */
+	private static class LongNode{
+
+		private long key;
+		private LongNode left;
+		private LongNode right;
+		private int height = 1;
+
+		public LongNode(long key) {
+			this.key = key;
+		}
+
+	}
+
+	/*
+	 * In-order iterator that only keeps the path from the root to the current node.
+	 */
+	private static class LongBSTIter implements PrimitiveIterator.OfLong{
+
+		private ArrayDeque<LongNode> path = new ArrayDeque<>();
+
+		public LongBSTIter(LongNode n) {
+			pushLeft(n);
+		}
+
+		private void pushLeft(LongNode n) {
+			while (n != null) {
+				path.push(n);
+				n = n.left;
+			}
+		}
+
+		public boolean hasNext() {
+			return (!path.isEmpty());
+		}
+
+		public long nextLong() {
+			if (path.isEmpty())
+				throw new NoSuchElementException();
+			LongNode n = path.pop();
+			pushLeft(n.right);
+			return n.key;
+		}
+
+	}
+
+}
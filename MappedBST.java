@@ -0,0 +1,309 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class writes binary search trees to disk and reopens them as read-only sets
+ * that are searched straight from a memory-mapped file, without rebuilding the tree.
+ * <p>
+ * File format, all ints big-endian:
+ * <pre>
+ * int   magic            0x42535431 ("BST1")
+ * int   count            number of elements
+ * int   flags            1 if the structure section is present
+ * int   dataLength       length of the data section in bytes
+ * int[] offsets          count + 1 offsets of each element into the data section
+ * byte[] data            the encoded elements, in ascending order
+ * int[] structure        optional, the ascending index of each element in the
+ *                        preorder of the original tree
+ * </pre>
+ * Lookups binary search the offset table, so contains, ceiling, floor, higher and
+ * lower cost O(log n) comparisons against the mapped bytes. The structure section
+ * lets toBST rebuild the original shape of an unbalanced tree.
+ * @author Matthew Goodbar
+ *
+ * @param <E> Must implement comparable interface
+ */
+public class MappedBST<E extends Comparable<E>> extends AbstractSet<E> implements Iterable<E>{
+
+	private static final int MAGIC = 0x42535431;
+	private static final int HEADER_LENGTH = 16;
+	private static final int HAS_STRUCTURE = 1;
+
+	private final ByteBuffer buf;
+	private final BSTCodec<E> codec;
+	private final int count;
+	private final boolean hasStructure;
+	//Absolute positions of the sections in the file
+	private final int dataStart;
+	private final int structureStart;
+	//Class of the stored elements, null if there are none
+	private final Class<?> elementClass;
+
+	private MappedBST(ByteBuffer buf, BSTCodec<E> codec) throws IOException {
+		this.buf = buf;
+		this.codec = codec;
+		if (buf.capacity() < HEADER_LENGTH || buf.getInt(0) != MAGIC)
+			throw new IOException("File is not a BST snapshot");
+		count = buf.getInt(4);
+		hasStructure = (buf.getInt(8) & HAS_STRUCTURE) != 0;
+		int dataLength = buf.getInt(12);
+		long sectionStart = HEADER_LENGTH + (count + 1L) * Integer.BYTES;
+		long expected = sectionStart + dataLength + (hasStructure ? (long) count * Integer.BYTES : 0);
+		if (count < 0 || dataLength < 0 || buf.capacity() != expected)
+			throw new IOException("BST snapshot is truncated or corrupt");
+		dataStart = (int) sectionStart;
+		structureStart = dataStart + dataLength;
+		elementClass = (count == 0) ? null : element(0).getClass();
+	}
+
+	/**
+	 * Writes the elements of a tree to a snapshot file, replacing the file if it exists.
+	 * @param tree The tree to write.
+	 * @param file The file to write to.
+	 * @param codec Encodes the elements of the tree.
+	 * @param withStructure If true, also records the shape of the tree so that toBST
+	 * can rebuild it.
+	 * @throws IOException When the file cannot be written, or the snapshot would be
+	 * larger than 2GB.
+	 */
+	public static <E extends Comparable<E>> void write(BST<E> tree, Path file, BSTCodec<E> codec,
+			boolean withStructure) throws IOException {
+		int count = tree.size();
+		int[] offsets = new int[count + 1];
+		long dataStart = HEADER_LENGTH + (long) (count + 1) * Integer.BYTES;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			//Stream the data section first, recording where each element starts
+			channel.position(dataStart);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			long position = 0;
+			int i = 0;
+			for (E e : tree) {
+				byte[] bytes = codec.encode(e);
+				offsets[i++] = (int) position;
+				out.write(bytes);
+				position += bytes.length;
+				if (dataStart + position > Integer.MAX_VALUE)
+					throw new IOException("BST snapshot would be larger than 2GB");
+			}
+			offsets[count] = (int) position;
+			if (withStructure) {
+				for (int rank : tree.preorderRanks())
+					out.writeInt(rank);
+			}
+			out.flush();
+			if (dataStart + position + (withStructure ? (long) count * Integer.BYTES : 0) > Integer.MAX_VALUE)
+				throw new IOException("BST snapshot would be larger than 2GB");
+			//Then fill in the header and offset table in front of it
+			ByteBuffer head = ByteBuffer.allocate((int) dataStart);
+			head.putInt(MAGIC).putInt(count).putInt(withStructure ? HAS_STRUCTURE : 0).putInt((int) position);
+			for (int offset : offsets)
+				head.putInt(offset);
+			head.flip();
+			long at = 0;
+			while (head.hasRemaining())
+				at += channel.write(head, at);
+		}
+	}
+
+	/**
+	 * Maps a snapshot file into memory as a read-only set.
+	 * @param file The snapshot file.
+	 * @param codec Decodes the elements, must match the codec the file was written with.
+	 * @return Returns the mapped set.
+	 * @throws IOException When the file cannot be read or is not a valid snapshot.
+	 */
+	public static <E extends Comparable<E>> MappedBST<E> open(Path file, BSTCodec<E> codec) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("BST snapshot is larger than 2GB");
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MappedBST<>(mapped, codec);
+		}
+	}
+
+	/**
+	 * @return Returns the number of elements in the set.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Checks to see if the given argument is in the set.
+	 * @param o The element to be searched for.
+	 * @return Returns true if the given argument is in the set, false if otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o) {
+		if (o == null || o.getClass() != elementClass)
+			return false;
+		E e = (E) o;
+		int i = lowerBound(e);
+		return i < count && compareAt(i, e) == 0;
+	}
+
+	/**
+	 * @return Returns the first (lowest) element in this set.
+	 * @throws NoSuchElementException When the set is empty.
+	 */
+	public E first() throws NoSuchElementException {
+		if (count == 0)
+			throw new NoSuchElementException();
+		return element(0);
+	}
+
+	/**
+	 * @return Returns the last (highest) element in this set.
+	 * @throws NoSuchElementException When the set is empty.
+	 */
+	public E last() throws NoSuchElementException {
+		if (count == 0)
+			throw new NoSuchElementException();
+		return element(count - 1);
+	}
+
+	/**
+	 * @param e The given element to compare to
+	 * @return Returns the least element in this set greater than or equal to the given element,
+	 * or null if there is no such element.
+	 */
+	public E ceiling(E e) {
+		if (e == null)
+			return null;
+		return elementOrNull(lowerBound(e));
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the least element in this set strictly greater than the given element,
+	 * or null if there is no such element.
+	 */
+	public E higher(E e) {
+		if (e == null)
+			return null;
+		return elementOrNull(upperBound(e));
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the greatest element in this set less than or equal to the given element,
+	 * or null if there is no such element
+	 */
+	public E floor(E e) {
+		if (e == null)
+			return null;
+		return elementOrNull(upperBound(e) - 1);
+	}
+
+	/**
+	 * @param e The given element to compare to.
+	 * @return Returns the greatest element in this set strictly less than the given element,
+	 * or null if there is no such element
+	 */
+	public E lower(E e) {
+		if (e == null)
+			return null;
+		return elementOrNull(lowerBound(e) - 1);
+	}
+
+	/**
+	 * Creates and returns an iterator over the elements in ascending order.
+	 * @return Returns an instance of the iterator.
+	 */
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < count;
+			}
+
+			public E next() {
+				if (next >= count)
+					throw new NoSuchElementException();
+				return element(next++);
+			}
+		};
+	}
+
+	/**
+	 * Loads the snapshot back into a mutable tree. An unbalanced tree is rebuilt with
+	 * the shape it was written with if the snapshot has a structure section, otherwise
+	 * the tree is built perfectly balanced in linear time.
+	 * @param balanced If true, the tree keeps itself height balanced (AVL) on every
+	 * add and remove.
+	 * @return Returns the new tree.
+	 */
+	public BST<E> toBST(boolean balanced) {
+		if (!hasStructure || balanced)
+			return BST.fromSorted(iterator(), count, balanced);
+		int[] ranks = new int[count];
+		for (int i = 0; i < count; i++)
+			ranks[i] = buf.getInt(structureStart + i * Integer.BYTES);
+		return BST.fromPreorderRanks(ranks, this::element);
+	}
+
+	/*
+	 * Index of the first element greater than or equal to e, or count if there is none
+	 */
+	private int lowerBound(E e) {
+		int lo = 0;
+		int hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compareAt(mid, e) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/*
+	 * Index of the first element strictly greater than e, or count if there is none
+	 */
+	private int upperBound(E e) {
+		int lo = 0;
+		int hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compareAt(mid, e) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	private int offset(int i) {
+		return dataStart + buf.getInt(HEADER_LENGTH + i * Integer.BYTES);
+	}
+
+	private int length(int i) {
+		return buf.getInt(HEADER_LENGTH + (i + 1) * Integer.BYTES) - buf.getInt(HEADER_LENGTH + i * Integer.BYTES);
+	}
+
+	private int compareAt(int i, E e) {
+		return codec.compare(buf, offset(i), length(i), e);
+	}
+
+	private E element(int i) {
+		return codec.decode(buf, offset(i), length(i));
+	}
+
+	private E elementOrNull(int i) {
+		return (i < 0 || i >= count) ? null : element(i);
+	}
+
+}
@@ -0,0 +1,324 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * This class creates an immutable singly linked list of objects. Lists are never
+ * changed once built: prepend returns a new list whose first node links to the nodes
+ * of the old one, and tail returns a list starting at the second node, so both are
+ * O(1) and every version shares the nodes it has in common with the others. Since a
+ * list can't change, handing it to another thread or pipeline stage is already a
+ * snapshot and needs no copy. A Builder appends elements in place for bulk
+ * construction before the list is published. Like LinkedList, the list cannot
+ * contain null elements. Methods that would change the list throw
+ * UnsupportedOperationException.
+ * @author Matthew
+ *
+ * @param <E> E is the declared type of the elements to be stored in the list.
+ */
+public final class PersistentList<E> extends AbstractCollection<E> implements Iterable<E> {
+
+	private static final PersistentList<Object> EMPTY = new PersistentList<>(null, 0);
+
+	private final Node<E> head;
+	private final int size;
+
+	private PersistentList(Node<E> head, int size) {
+		this.head = head;
+		this.size = size;
+	}
+
+	/**
+	 * @return Returns the empty list.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentList<E> empty() {
+		return (PersistentList<E>) EMPTY;
+	}
+
+	/**
+	 * Creates a list holding the elements of c, in the order c returns them.
+	 * Null elements are skipped.
+	 * @param c The collection whose elements are copied.
+	 * @return Returns the new list, or c itself if it is already a PersistentList.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentList<E> copyOf(Collection<? extends E> c) {
+		if (c instanceof PersistentList) { //Immutable, nothing to copy
+			return (PersistentList<E>) c;
+		}
+		Builder<E> builder = new Builder<>();
+		builder.addAll(c);
+		return builder.build();
+	}
+
+	/**
+	 * Creates a new Builder to build a list from first to last element.
+	 * @return Returns the new Builder.
+	 */
+	public static <E> Builder<E> builder() {
+		return new Builder<>();
+	}
+
+	/**
+	 * Returns a list with e in front of the elements of this list, in O(1).
+	 * This list is unchanged and shares all of its nodes with the new one.
+	 * @param e The element to put in front.
+	 * @return Returns the new list.
+	 * @throws IllegalArgumentException When e is null.
+	 */
+	public PersistentList<E> prepend(E e) throws IllegalArgumentException{
+		if (e == null) { //List can't contain null elements
+			throw new IllegalArgumentException();
+		}
+		return new PersistentList<>(new Node<E>(e, head), size + 1);
+	}
+
+	/**
+	 * @return Returns the first element of the list.
+	 * @throws NoSuchElementException When the list is empty.
+	 */
+	public E head() throws NoSuchElementException{
+		if (head == null) {
+			throw new NoSuchElementException();
+		}
+		return head.data;
+	}
+
+	/**
+	 * Returns the list of every element after the first, in O(1), sharing this list's nodes.
+	 * @return Returns the list without its first element.
+	 * @throws NoSuchElementException When the list is empty.
+	 */
+	public PersistentList<E> tail() throws NoSuchElementException{
+		if (head == null) {
+			throw new NoSuchElementException();
+		}
+		return (size == 1) ? empty() : new PersistentList<>(head.next, size - 1);
+	}
+
+	/**
+	 * Retrieves the element at the specified index.
+	 * @param index The index of the element to retrieve
+	 * @return returns the element at the given index.
+	 * @throws IndexOutOfBoundsException When the given index is not in the list.
+	 */
+	public E get(int index) throws IndexOutOfBoundsException{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		Node<E> cursor = head;
+		for (int i = 0; i < index; i++) {
+			cursor = cursor.next;
+		}
+		return cursor.data;
+	}
+
+	/**
+	 * Finds the index of Object o in the list, if it is in the list.
+	 * @param o The object in question.
+	 * @return Returns the index of the Object in the list,
+	 * or -1 if the Object is not in the list.
+	 */
+	public int indexOf(Object o) {
+		if (o == null) { //null cannot be an element of the list
+			return -1;
+		}
+		int index = 0;
+		for (Node<E> cursor = head; index < size; cursor = cursor.next, index++) {
+			if (o.equals(cursor.data)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks to see if Object o is in the list.
+	 * @param o The object in question.
+	 * @return Returns true if the object is in the list, false otherwise;
+	 */
+	public boolean contains(Object o) {
+		return (indexOf(o) >= 0);
+	}
+
+	/**
+	 * @return Returns the number of elements in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates an iterator over the elements, from first to last.
+	 */
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private Node<E> cursor = head;
+			private int remaining = size;
+
+			public boolean hasNext() {
+				return (remaining > 0);
+			}
+
+			public E next() throws NoSuchElementException{
+				if (remaining <= 0) {
+					throw new NoSuchElementException();
+				}
+				E e = cursor.data;
+				cursor = cursor.next;
+				remaining--;
+				return e;
+			}
+		};
+	}
+
+	/**
+	 * Creates a spliterator over the elements that reports ORDERED, SIZED, NONNULL
+	 * and IMMUTABLE.
+	 */
+	public Spliterator<E> spliterator() {
+		return Spliterators.spliterator(iterator(), size,
+			Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+	}
+
+	/**
+	 * Checks if o is a PersistentList holding equal elements in the same order. Lists
+	 * that share their remaining nodes are known to be equal without comparing them,
+	 * so comparing a list to one derived from it stops where they start sharing.
+	 * @param o The object in question.
+	 * @return Returns true if the lists are equal, false otherwise.
+	 */
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof PersistentList)) {
+			return false;
+		}
+		PersistentList<?> other = (PersistentList<?>) o;
+		if (other.size != size) { //The two lists can't be equal if they don't have the same cardinality
+			return false;
+		}
+		Node<?> a = head;
+		Node<?> b = other.head;
+		for (int i = 0; i < size && a != b; i++) { //Same node with the same number of elements left means the rest is shared
+			if (!a.data.equals(b.data)) {
+				return false;
+			}
+			a = a.next;
+			b = b.next;
+		}
+		return true;
+	}
+
+	/**
+	 * @return Returns a hash code computed from the elements in order, like List.hashCode().
+	 */
+	public int hashCode() {
+		int hash = 1;
+		for (E e : this) {
+			hash = 31 * hash + e.hashCode();
+		}
+		return hash;
+	}
+
+	/**
+	 * This class builds a PersistentList from first to last element. Appending links
+	 * new nodes onto the last one in place, which is safe because no list can see
+	 * them until build() is called; after that the builder starts over empty.
+	 * @author Matthew
+	 *
+	 * @param <E> The declared type of the list.
+	 */
+	public static final class Builder<E>{
+
+		private Node<E> first;
+		private Node<E> last;
+		private int size = 0;
+
+		private Builder() {
+
+		}
+
+		/**
+		 * Adds a new element to the end of the list being built, in O(1).
+		 * @param e Data to be stored in the list.
+		 * @return Returns true if element was added correctly, false if it is null.
+		 */
+		public boolean add(E e) {
+			if (e == null) { //List can't contain null elements
+				return false;
+			}
+			Node<E> added = new Node<E>(e, null);
+			if (first == null) {
+				first = added;
+			} else {
+				last.next = added;
+			}
+			last = added;
+			size++;
+			return true;
+		}
+
+		/**
+		 * Adds every element of c to the end of the list being built. Null elements are skipped.
+		 * @param c The collection of elements to add.
+		 * @return Returns this Builder.
+		 */
+		public Builder<E> addAll(Iterable<? extends E> c) {
+			if (c != null) {
+				for (E e : c) {
+					add(e);
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * @return Returns the number of elements added since the builder was created or last built.
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Publishes the elements added so far as a list, in O(1), and empties the builder.
+		 * @return Returns the new list.
+		 */
+		public PersistentList<E> build() {
+			if (first == null) {
+				return empty();
+			}
+			PersistentList<E> result = new PersistentList<>(first, size);
+			first = null; //The nodes belong to the list now, never link onto them again
+			last = null;
+			size = 0;
+			return result;
+		}
+
+	}
+
+	/**
+	 * This class creates the nodes of the list. next is only changed by a Builder,
+	 * before the node is part of any list.
+	 * @author Matthew
+	 *
+	 * @param <E> The declared type of the list.
+	 */
+	private static final class Node<E>{
+
+		private final E data;
+		private Node<E> next;
+
+		public Node(E data, Node<E> next) {
+			this.data = data;
+			this.next = next;
+		}
+
+	}
+
+}